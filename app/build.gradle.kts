@@ -15,6 +15,10 @@ android {
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
 
+        // Fleet metadata service, e.g. -PfleetMetadataUrl=https://fleet.example.org/api/; none by default
+        val fleetMetadataUrl = providers.gradleProperty("fleetMetadataUrl").getOrElse("")
+        buildConfigField("String", "FLEET_METADATA_URL", "\"$fleetMetadataUrl\"")
+
         // Include all ABIs for emulator compatibility (accept 16KB warning for now)
         // Remove this filter to include x86/x86_64 for emulators
         // ndk {
@@ -32,11 +36,20 @@ android {
         }
     }
 
+    buildFeatures {
+        buildConfig = true
+    }
+
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
 
+    // The person model is memory-mapped straight from the APK
+    androidResources {
+        noCompress += "tflite"
+    }
+
     packaging {
         resources {
             excludes += listOf(
@@ -61,6 +74,7 @@ android {
 
 dependencies {
 
+    implementation(project(":decision"))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
@@ -77,6 +91,9 @@ dependencies {
     // Updated ML Kit to latest version with better 16KB support
     implementation("com.google.mlkit:object-detection:17.0.2")
 
+    // Person-only model on the CPU; XNNPACK ships inside the runtime
+    implementation("org.tensorflow:tensorflow-lite:2.16.1")
+
     // Updated CameraX to latest versions
     implementation("androidx.camera:camera-core:1.4.0")
     implementation("androidx.camera:camera-camera2:1.4.0")
@@ -84,6 +101,8 @@ dependencies {
     implementation("androidx.camera:camera-view:1.4.0")
 
     testImplementation(libs.junit)
+    // Same OkHttp line as Retrofit 2.9.0
+    testImplementation("com.squareup.okhttp3:mockwebserver:3.14.9")
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.example.myapplication.ai;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.myapplication.decision.Detection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeFalse;
+
+/**
+ * Compares the detection engines on labelled images from the test APK's assets:
+ * {@code harness/<name>.jpg} with {@code harness/<name>.txt} holding one
+ * "left top right bottom" box per labelled person. Skipped when there are no samples.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DetectorHarnessTest {
+
+    private static final String TAG = "DetectorHarnessTest";
+    private static final String SAMPLE_DIR = "harness";
+
+    @Test
+    public void compareEngines() throws Exception {
+        Context testContext = InstrumentationRegistry.getInstrumentation().getContext();
+        Context appContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        List<DetectorHarness.Sample> samples = loadSamples(testContext.getAssets());
+        assumeFalse("No harness samples", samples.isEmpty());
+
+        DetectorHarness harness = new DetectorHarness(2, 5, 0.5f);
+        for (String engine : new String[]{PersonDetectors.ENGINE_MLKIT, PersonDetectors.ENGINE_TFLITE}) {
+            PersonDetector detector = PersonDetectors.create(appContext, engine);
+            try {
+                DetectorHarness.Report report = harness.run(detector, samples);
+                Log.i(TAG, "Requested " + engine + " → " + report);
+                assertEquals(0, report.failures);
+                assertEquals(5 * samples.size(), report.runs);
+            } finally {
+                detector.close();
+            }
+        }
+    }
+
+    private static List<DetectorHarness.Sample> loadSamples(AssetManager assets) throws IOException {
+        List<DetectorHarness.Sample> samples = new ArrayList<>();
+        String[] files = assets.list(SAMPLE_DIR);
+        if (files == null) {
+            return samples;
+        }
+        for (String file : files) {
+            if (!file.endsWith(".jpg")) {
+                continue;
+            }
+            String name = file.substring(0, file.length() - 4);
+            Bitmap bitmap;
+            try (InputStream in = assets.open(SAMPLE_DIR + "/" + file)) {
+                bitmap = BitmapFactory.decodeStream(in);
+            }
+            samples.add(DetectorHarness.sample(name, bitmap, readBoxes(assets, SAMPLE_DIR + "/" + name + ".txt")));
+            bitmap.recycle();
+        }
+        return samples;
+    }
+
+    private static List<Detection> readBoxes(AssetManager assets, String path) throws IOException {
+        List<Detection> boxes = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(assets.open(path)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length < 4) {
+                    continue;
+                }
+                boxes.add(new Detection(Float.parseFloat(parts[0]), Float.parseFloat(parts[1]),
+                        Float.parseFloat(parts[2]), Float.parseFloat(parts[3]), Detection.NO_TRACKING_ID, 1f));
+            }
+        }
+        return boxes;
+    }
+}
@@ -2,19 +2,44 @@ package com.example.myapplication.DTO;
 
 import com.google.gson.annotations.SerializedName;
 
+import java.util.Collections;
+import java.util.List;
+
 public class Robot {
     @SerializedName("id")
     private int id;
     @SerializedName("name")
     private String name;
 
+    // One of the RobotStatus codes
     @SerializedName("status")
-    private String status;
+    private int status;
+
+    // Wall-clock time of the last status message, 0 if never seen live
+    @SerializedName("last_seen")
+    private long lastSeenMs;
+
+    // Fleet metadata, null/empty until synced
+    @SerializedName("zone")
+    private String zone;
+    @SerializedName("capabilities")
+    private List<String> capabilities = Collections.emptyList();
 
-    public Robot(int id, String name, String status) {
+    public Robot(int id, String name, int status) {
+        this(id, name, status, 0);
+    }
+
+    public Robot(int id, String name, int status, long lastSeenMs) {
         this.name = name;
         this.status = status;
         this.id = id;
+        this.lastSeenMs = lastSeenMs;
+    }
+
+    private Robot(Robot other, int status, long lastSeenMs) {
+        this(other.id, other.name, status, lastSeenMs);
+        this.zone = other.zone;
+        this.capabilities = other.capabilities;
     }
 
     public String getName() {
@@ -33,11 +58,41 @@ public class Robot {
         this.id = id;
     }
 
-    public String getStatus() {
+    public int getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(int status) {
         this.status = status;
     }
+
+    public long getLastSeenMs() {
+        return lastSeenMs;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public List<String> getCapabilities() {
+        return capabilities;
+    }
+
+    public void setCapabilities(List<String> capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    // Copy with a new status; list entries are replaced rather than mutated
+    public Robot withStatus(int status, long lastSeenMs) {
+        return new Robot(this, status, lastSeenMs);
+    }
+
+    // Copy with name, zone and capabilities taken from synced metadata; live state is kept
+    public Robot withMetadata(Robot metadata) {
+        return new Robot(metadata, status, lastSeenMs);
+    }
 }
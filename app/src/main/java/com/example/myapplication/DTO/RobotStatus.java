@@ -0,0 +1,72 @@
+package com.example.myapplication.DTO;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Int codes for the status strings robots publish on {@code robot/<id>/status}.
+ * A payload is parsed once, straight from its bytes, when it arrives; everything
+ * downstream (list diffing, binding) works with the int.
+ */
+public final class RobotStatus {
+
+    public static final int OFFLINE = 0;
+    public static final int ONLINE = 1;
+    public static final int ADMIN_CONNECTED = 2;
+    public static final int ADMIN_DISCONNECTED = 3;
+    public static final int DISCONNECTED = 4;
+    public static final int UNKNOWN = 5;
+
+    public static final int COUNT = 6;
+
+    private static final String[] NAMES = {
+            "offline", "online", "admin_connected", "admin_disconnected", "disconnected", "unknown"
+    };
+
+    private static final byte[][] NAME_BYTES = new byte[COUNT][];
+
+    static {
+        for (int i = 0; i < COUNT; i++) {
+            NAME_BYTES[i] = NAMES[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private RobotStatus() {}
+
+    // Case-insensitive match against the known names; surrounding whitespace is ignored
+    public static int parse(byte[] payload) {
+        int start = 0;
+        int end = payload.length;
+        while (start < end && payload[start] <= ' ') start++;
+        while (end > start && payload[end - 1] <= ' ') end--;
+
+        for (int status = 0; status < COUNT; status++) {
+            byte[] name = NAME_BYTES[status];
+            if (name.length == end - start && equalsIgnoreCase(payload, start, name)) {
+                return status;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    public static int parse(String status) {
+        return parse(status.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Wire name of a status code
+    public static String nameOf(int status) {
+        return status >= 0 && status < COUNT ? NAMES[status] : NAMES[UNKNOWN];
+    }
+
+    private static boolean equalsIgnoreCase(byte[] payload, int offset, byte[] lowerName) {
+        for (int i = 0; i < lowerName.length; i++) {
+            int b = payload[offset + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != lowerName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -19,8 +19,10 @@ import androidx.core.content.ContextCompat;
 
 import com.example.myapplication.R;
 import com.example.myapplication.agora.AgoraHelper;
+import com.example.myapplication.protocol.CommandFrame;
 import com.example.myapplication.service.MqttManager;
-import com.example.myapplication.service.MqttManagerConfig;
+import com.example.myapplication.service.RobotChannel;
+import com.example.myapplication.service.SharedMqttManager;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -34,6 +36,7 @@ public class Controller extends AppCompatActivity {
     private FrameLayout cameraView;
     private AgoraHelper agora;
     private MqttManager mqtt;
+    private RobotChannel robotChannel;
     private boolean aiMode = false;
     private ExecutorService backgroundExecutor;
 
@@ -56,25 +59,21 @@ public class Controller extends AppCompatActivity {
 
         Log.d(TAG, "🎮 Controller started for robot: " + robotId);
 
+        mqtt = SharedMqttManager.acquire(this);
+        robotChannel = new RobotChannel(mqtt, robotId);
+        // Announced on every connect; the broker withdraws it through our Last Will if this app dies
+        robotChannel.claimOperatorPresence();
+        mqtt.whenConnected().thenRun(() -> Log.d(TAG, "Robot " + robotId + " claimed by operator"));
+
         backgroundExecutor.execute(() -> {
             try {
-                mqtt = new MqttManager(
-                        MqttManagerConfig.HOST,
-                        MqttManagerConfig.PORT,
-                        MqttManagerConfig.USERNAME,
-                        MqttManagerConfig.PASSWORD
-                );
-                String statusTopic = "robot/" + robotId + "/status";
-                mqtt.publish(statusTopic, "admin_connected");
-                Log.d(TAG, "Robot " + robotId + " marked ONLINE");
-
                 agora = new AgoraHelper(this, getString(R.string.agora_app_id), rtcHandler);
                 String channel = "robot_" + robotId + "_channel";
                 agora.joinChannel(getString(R.string.agora_access_token), channel);
                 Log.d(TAG, "Agora joined: " + channel);
 
             } catch (Exception e) {
-                Log.e(TAG, "Error initializing MQTT/Agora: " + e.getMessage());
+                Log.e(TAG, "Error initializing Agora: " + e.getMessage());
             }
         });
 
@@ -128,25 +127,20 @@ public class Controller extends AppCompatActivity {
                     aiMode ? Color.RED : Color.parseColor("#4CAF50")));
             aiButton.setText(aiMode ? "AI: ON" : "AI: OFF");
 
-            if (mqtt != null) {
-                backgroundExecutor.execute(() ->
-                        mqtt.publish("robot/" + robotID + "/ai_mode", aiMode ? "ON" : "OFF"));
-                Log.d(TAG, "AI mode toggled → " + (aiMode ? "ON" : "OFF"));
-            } else {
-                Log.w(TAG, "MQTT not ready yet — AI mode toggle skipped");
-            }
+            robotChannel.publishAiMode(aiMode);
+            Log.d(TAG, "AI mode toggled → " + (aiMode ? "ON" : "OFF"));
         });
 
-        setupKeyBehavior(R.id.btn_up, "FORWARD");
-        setupKeyBehavior(R.id.btn_down, "BACKWARD");
-        setupKeyBehavior(R.id.btn_left, "LEFT");
-        setupKeyBehavior(R.id.btn_right, "RIGHT");
+        setupKeyBehavior(R.id.btn_up, CommandFrame.OP_FORWARD);
+        setupKeyBehavior(R.id.btn_down, CommandFrame.OP_BACKWARD);
+        setupKeyBehavior(R.id.btn_left, CommandFrame.OP_LEFT);
+        setupKeyBehavior(R.id.btn_right, CommandFrame.OP_RIGHT);
 
         setupStopButton(R.id.btn_stop);
     }
 
 
-    private void setupKeyBehavior(int buttonId, String command) {
+    private void setupKeyBehavior(int buttonId, int opcode) {
         View btn = findViewById(buttonId);
 
         btn.setOnTouchListener((v, event) -> {
@@ -157,15 +151,13 @@ public class Controller extends AppCompatActivity {
             switch (event.getAction()) {
                 case MotionEvent.ACTION_DOWN:
                     v.setAlpha(0.6f);
-                    sendCmd(command);
-                    Log.d(TAG, "Button pressed: " + command);
+                    sendCmd(opcode);
                     break;
 
                 case MotionEvent.ACTION_UP:
                 case MotionEvent.ACTION_CANCEL:
                     v.setAlpha(1f);
-                    sendCmd("STOP");
-                    Log.d(TAG, "Button released: STOP");
+                    sendCmd(CommandFrame.OP_STOP);
                     v.performClick();
                     break;
             }
@@ -185,8 +177,7 @@ public class Controller extends AppCompatActivity {
             switch (event.getAction()) {
                 case MotionEvent.ACTION_DOWN:
                     v.setAlpha(0.6f);
-                    sendCmd("STOP");
-                    Log.d(TAG, "STOP pressed");
+                    sendCmd(CommandFrame.OP_STOP);
                     break;
 
                 case MotionEvent.ACTION_UP:
@@ -221,15 +212,9 @@ public class Controller extends AppCompatActivity {
         }
     };
 
-    private void sendCmd(String cmd) {
-        if (mqtt != null) {
-            backgroundExecutor.execute(() -> {
-                mqtt.publish("robot/" + robotId + "/control", cmd);
-            });
-            Log.d(TAG, "Sent: " + cmd);
-        } else {
-            Log.w(TAG, "MQTT not connected — command skipped: " + cmd);
-        }
+    // Runs on the touch thread: the publish is asynchronous and RobotChannel allocates nothing
+    private void sendCmd(int opcode) {
+        robotChannel.sendCommand(opcode);
     }
 
     private void retrieveInfo() {
@@ -242,12 +227,11 @@ public class Controller extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
 
-        if (mqtt != null) {
-            backgroundExecutor.execute(() -> {
-                mqtt.publish("robot/" + robotId + "/control", "STOP");
-                Log.d(TAG, "Final STOP sent before disconnect");
-            });
-        }
+        robotChannel.sendCommand(CommandFrame.OP_STOP);
+        Log.d(TAG, "Final STOP sent before disconnect");
+
+        // Released here, not after the Agora teardown: a screen opened meanwhile has its own claim
+        robotChannel.releasePresence();
 
         backgroundExecutor.execute(() -> {
             try {
@@ -257,15 +241,14 @@ public class Controller extends AppCompatActivity {
                     agora.destroy();
                     Log.d(TAG, "Agora destroyed");
                 }
-
+            } catch (Exception e) {
+                Log.e(TAG, "Error during cleanup: " + e.getMessage());
+            } finally {
+                // Even if Agora failed: a missed release keeps the shared connection open for good
                 if (mqtt != null) {
-                    String statusTopic = "robot/" + robotId + "/status";
-                    mqtt.publish(statusTopic, "admin_disconnected");
-                    mqtt.disconnect();
+                    SharedMqttManager.release();
                     Log.d(TAG, "Robot " + robotId + " disconnected cleanly");
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "Error during cleanup: " + e.getMessage());
             }
         });
 
@@ -0,0 +1,123 @@
+package com.example.myapplication.activity;
+
+import android.app.Activity;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.CheckBox;
+import android.widget.EditText;
+import android.widget.Spinner;
+
+import com.example.myapplication.DTO.Robot;
+import com.example.myapplication.R;
+import com.example.myapplication.service.FleetQuery;
+import com.example.myapplication.service.FleetStatusRepository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Search field, zone selector and filter toggles of a robot picker (layout {@code fleet_filter_bar}).
+ * Holds the current query and re-runs it against the fleet indexes on every keystroke;
+ * nothing is rebuilt per query.
+ */
+class FleetFilterBar {
+
+    private static final String ALL_ZONES = "All zones";
+
+    private final FleetStatusRepository fleet;
+    private final RobotAdapter adapter;
+    private final int availableStatus;
+    private final Spinner zoneSpinner;
+    private final ArrayAdapter<String> zoneAdapter;
+    private List<String> shownZones = Collections.emptyList();
+
+    private String namePrefix = "";
+    // null for every zone
+    private String zone = null;
+    private boolean availableOnly = false;
+    private boolean recentFirst = false;
+
+    /**
+     * @param availableStatus the status a robot must have to be picked on this screen
+     */
+    FleetFilterBar(Activity activity, FleetStatusRepository fleet, RobotAdapter adapter, int availableStatus) {
+        this.fleet = fleet;
+        this.adapter = adapter;
+        this.availableStatus = availableStatus;
+
+        EditText search = activity.findViewById(R.id.search_robots);
+        search.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                namePrefix = s.toString().trim();
+                render();
+            }
+        });
+
+        CheckBox available = activity.findViewById(R.id.filter_available);
+        available.setOnCheckedChangeListener((button, checked) -> {
+            availableOnly = checked;
+            render();
+        });
+
+        // Filled from fleet metadata in render(); the first entry means no zone filter
+        zoneAdapter = new ArrayAdapter<>(activity, android.R.layout.simple_spinner_item);
+        zoneAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        zoneAdapter.add(ALL_ZONES);
+        zoneSpinner = activity.findViewById(R.id.filter_zone);
+        zoneSpinner.setAdapter(zoneAdapter);
+        zoneSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                String selected = position == 0 ? null : zoneAdapter.getItem(position);
+                if (selected == null ? zone != null : !selected.equals(zone)) {
+                    zone = selected;
+                    render();
+                }
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {}
+        });
+
+        CheckBox recent = activity.findViewById(R.id.sort_recent);
+        recent.setOnCheckedChangeListener((button, checked) -> {
+            recentFirst = checked;
+            render();
+        });
+    }
+
+    // Re-runs the current query; call whenever the fleet changes
+    void render() {
+        updateZones();
+        int statusMask = availableOnly ? FleetQuery.maskOf(availableStatus) : FleetQuery.ALL_STATUSES;
+        int sort = recentFirst ? FleetQuery.SORT_LAST_SEEN : FleetQuery.SORT_ID;
+        List<Robot> robots = fleet.query(namePrefix, statusMask, zone, sort);
+        adapter.submitList(robots);
+    }
+
+    // Refills the zone selector when metadata brought other zones; a zone that vanished is deselected
+    private void updateZones() {
+        List<String> zones = fleet.zones();
+        if (zones.equals(shownZones)) {
+            return;
+        }
+        shownZones = zones;
+        zoneAdapter.clear();
+        zoneAdapter.add(ALL_ZONES);
+        zoneAdapter.addAll(zones);
+        if (zone != null && !zones.contains(zone)) {
+            zone = null;
+        }
+        zoneSpinner.setSelection(zone == null ? 0 : zones.indexOf(zone) + 1);
+    }
+}
@@ -11,10 +11,12 @@ import androidx.core.view.WindowInsetsCompat;
 
 import com.example.myapplication.R;
 import com.example.myapplication.service.MqttManager;
-import com.example.myapplication.service.MqttManagerConfig;
+import com.example.myapplication.service.SharedMqttManager;
 
 public class MainActivity extends AppCompatActivity {
 
+    private MqttManager mqtt;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -38,22 +40,15 @@ public class MainActivity extends AppCompatActivity {
             startActivity(intent);
         });
 
-        MqttManager mqtt;
-        mqtt = new MqttManager(
-                MqttManagerConfig.HOST,
-                MqttManagerConfig.PORT,
-                MqttManagerConfig.USERNAME,
-                MqttManagerConfig.PASSWORD
-        );
-
-        for (int i = 0; i < 5; i++) {
-            String statusTopic = "robot/" + i + "/status";
-            String aiTopic = "robot/" + i + "/ai_mode";
-            String move = "robot/" + i + "/control";
-            mqtt.publish(statusTopic, "offline");
-            mqtt.publish(aiTopic, "OFF");
-            mqtt.publish(aiTopic, "OFF");
-            mqtt.publish(move, "STOP");
+        // Open the shared connection early so the robot screens find it ready
+        mqtt = SharedMqttManager.acquire(this);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (mqtt != null) {
+            SharedMqttManager.release();
         }
     }
 }
\ No newline at end of file
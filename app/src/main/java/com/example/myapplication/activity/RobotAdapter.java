@@ -9,28 +9,73 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.myapplication.DTO.Robot;
+import com.example.myapplication.DTO.RobotStatus;
 import com.example.myapplication.R;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.Objects;
 
-public class RobotAdapter extends RecyclerView.Adapter<RobotAdapter.RobotViewHolder> {
+/**
+ * Robot list backed by {@link ListAdapter}: submitted lists are diffed off the main
+ * thread and only the rows that changed are rebound. Rows have stable IDs (the robot ID).
+ * Binding is table lookups on the int status code and allocates nothing.
+ */
+public class RobotAdapter extends ListAdapter<Robot, RobotAdapter.RobotViewHolder> {
 
-    private List<Robot> robotList;
-    private String page;
+    private static final DiffUtil.ItemCallback<Robot> DIFF = new DiffUtil.ItemCallback<Robot>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Robot oldItem, @NonNull Robot newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Robot oldItem, @NonNull Robot newItem) {
+            return oldItem.getStatus() == newItem.getStatus()
+                    && Objects.equals(oldItem.getName(), newItem.getName());
+        }
+    };
+
+    private static final int PAGE_CONTROLLER = 0;
+    private static final int PAGE_USER = 1;
+
+    // Indicator color per RobotStatus code
+    private static final int[] STATUS_COLORS = new int[RobotStatus.COUNT];
+
+    // Whether a robot can be picked, per page mode and RobotStatus code
+    private static final boolean[][] AVAILABLE = new boolean[2][RobotStatus.COUNT];
+
+    static {
+        Arrays.fill(STATUS_COLORS, Color.GRAY);
+        STATUS_COLORS[RobotStatus.ADMIN_CONNECTED] = Color.parseColor("#FF5252");
+        STATUS_COLORS[RobotStatus.ONLINE] = Color.parseColor("#0fdb78");
+
+        AVAILABLE[PAGE_CONTROLLER][RobotStatus.ONLINE] = true;
+        AVAILABLE[PAGE_USER][RobotStatus.OFFLINE] = true;
+    }
+
+    private final int pageMode;
     public interface OnRobotClickListener { void onRobotClick(Robot robot); }
     private OnRobotClickListener clickListener;
 
-    public RobotAdapter(List<Robot> robotList, String page) {
-        this(robotList, page, null);
+    public RobotAdapter(String page) {
+        this(page, null);
     }
 
-    public RobotAdapter(List<Robot> robotList, String page, OnRobotClickListener clickListener) {
-        this.robotList = robotList;
-        this.page = page;
+    public RobotAdapter(String page, OnRobotClickListener clickListener) {
+        super(DIFF);
+        this.pageMode = "user".equals(page) ? PAGE_USER : PAGE_CONTROLLER;
         this.clickListener = clickListener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     @NonNull
@@ -38,54 +83,50 @@ public class RobotAdapter extends RecyclerView.Adapter<RobotAdapter.RobotViewHol
     public RobotViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_robot, parent, false);
-        return new RobotViewHolder(view);
+        RobotViewHolder holder = new RobotViewHolder(view);
+
+        // One listener per holder; the robot is looked up from the bound position at click time
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return;
+            }
+            Robot robot = getItem(position);
+            if (!isAvailable(robot)) {
+                return;
+            }
+
+            if (clickListener != null) {
+                clickListener.onRobotClick(robot);
+            } else {
+                Context context = v.getContext();
+                Intent intent = new Intent(context, pageMode == PAGE_USER ? UserActivity.class : Controller.class);
+                intent.putExtra("id", robot.getId());
+                context.startActivity(intent);
+            }
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull RobotViewHolder holder, int position) {
-        Robot robot = robotList.get(position);
+        Robot robot = getItem(position);
         holder.tvrobotID.setText(robot.getName());
-        String status = robot.getStatus();
-        int color;
-        switch (status.toLowerCase()) {
-            case "admin_connected":
-                color = Color.parseColor("#FF5252");
-                break;
-            case "online":
-                color = Color.parseColor("#0fdb78");
-                break;
-            default:
-                color = Color.GRAY;
-                break;
-        }
-        holder.viewStatus.setBackgroundColor(color);
-
-        boolean isAvailable = (!page.equals("user") && status.equals("online")) ||
-                (page.equals("user") && status.equals("offline"));
+        holder.viewStatus.setBackgroundColor(STATUS_COLORS[statusIndex(robot)]);
 
+        boolean isAvailable = isAvailable(robot);
         holder.itemView.setAlpha(isAvailable ? 1.0f : 0.5f);
         holder.itemView.setEnabled(isAvailable);
         holder.itemView.setClickable(isAvailable);
+    }
 
-        if (isAvailable) {
-            holder.itemView.setOnClickListener(v -> {
-                if (clickListener != null) {
-                    clickListener.onRobotClick(robot);
-                } else {
-                    Context context = v.getContext();
-                    Intent intent = new Intent(context, page.equals("user") ? UserActivity.class : Controller.class);
-                    intent.putExtra("id", robot.getId());
-                    context.startActivity(intent);
-                }
-            });
-        } else {
-            holder.itemView.setOnClickListener(null);
-        }
+    private boolean isAvailable(Robot robot) {
+        return AVAILABLE[pageMode][statusIndex(robot)];
     }
 
-    @Override
-    public int getItemCount() {
-        return robotList.size();
+    private static int statusIndex(Robot robot) {
+        int status = robot.getStatus();
+        return status >= 0 && status < RobotStatus.COUNT ? status : RobotStatus.UNKNOWN;
     }
 
     public static class RobotViewHolder extends RecyclerView.ViewHolder {
@@ -5,7 +5,9 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.View;
 import android.widget.FrameLayout;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.activity.OnBackPressedCallback;
@@ -17,8 +19,11 @@ import androidx.core.content.ContextCompat;
 import com.example.myapplication.R;
 import com.example.myapplication.agora.AgoraHelper;
 import com.example.myapplication.ai.AIHelper;
+import com.example.myapplication.ai.PersonDetectors;
+import com.example.myapplication.service.MqttChannel;
 import com.example.myapplication.service.MqttManager;
-import com.example.myapplication.service.MqttManagerConfig;
+import com.example.myapplication.service.RobotChannel;
+import com.example.myapplication.service.SharedMqttManager;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -29,18 +34,20 @@ public class UserActivity extends AppCompatActivity {
 
     private static final String TAG = "UserActivity";
     private static final int CAMERA_PERMISSION_CODE = 100;
+    private static final long METRICS_REFRESH_MS = 500;
 
     private FrameLayout videoContainer;
+    private TextView metricsOverlay;
 
     private AgoraHelper agora;
     private MqttManager mqtt;
+    private RobotChannel robotChannel;
     private AIHelper aiHelper;
     private ExecutorService backgroundExecutor;
 
     private boolean aiEnabled = false;
     private boolean cameraPermissionGranted = false;
 
-    private String controlTopic;
     private String aiTopic;
     private int robotID;
 
@@ -68,11 +75,12 @@ public class UserActivity extends AppCompatActivity {
 
         Log.d(TAG, "VideoContainer initialized");
 
+        metricsOverlay = findViewById(R.id.ai_metrics_overlay);
+
         backgroundExecutor = Executors.newSingleThreadExecutor();
 
         robotID = getIntent().getIntExtra("id", 0);
-        controlTopic = "robot/" + robotID + "/control";
-        aiTopic = "robot/" + robotID + "/ai_mode";
+        aiTopic = MqttChannel.AI_MODE.topic(robotID);
 
         Log.d(TAG, "Robot ID: " + robotID);
 
@@ -138,20 +146,16 @@ public class UserActivity extends AppCompatActivity {
 
     private void initializeConnections() {
         try {
-            mqtt = new MqttManager(
-                    MqttManagerConfig.HOST,
-                    MqttManagerConfig.PORT,
-                    MqttManagerConfig.USERNAME,
-                    MqttManagerConfig.PASSWORD
-            );
-            Log.d(TAG, "MQTT connected");
+            mqtt = SharedMqttManager.acquire(this);
+            robotChannel = new RobotChannel(mqtt, robotID);
 
-            String statusTopic = "robot/" + robotID + "/status";
-            mqtt.publish(statusTopic, "online");
-            Log.d(TAG, "Robot " + robotID + " marked ONLINE");
+            // "online" on every connect, "offline" from the broker if this phone drops off
+            robotChannel.claimRobotPresence();
+            mqtt.whenConnected().thenRun(() -> Log.d(TAG, "MQTT connected, robot " + robotID + " present"));
+            listenForAIMode(aiTopic);
 
             runOnUiThread(() -> {
-                aiHelper = new AIHelper(this, mqtt, controlTopic);
+                aiHelper = new AIHelper(this, robotChannel);
                 Log.d(TAG, "AIHelper initialized");
             });
 
@@ -160,8 +164,6 @@ public class UserActivity extends AppCompatActivity {
             agora.joinChannel(getString(R.string.agora_access_token), channel);
             Log.d(TAG, "Agora joined: " + channel);
 
-            listenForAIMode(aiTopic);
-
         } catch (Exception e) {
             Log.e(TAG, "Init error: " + e.getMessage(), e);
             runOnUiThread(() ->
@@ -171,40 +173,40 @@ public class UserActivity extends AppCompatActivity {
     }
 
     private void listenForAIMode(String topic) {
-        try {
-            mqtt.getClient().subscribeWith()
-                    .topicFilter(topic)
-                    .callback(publish -> {
-                        String msg = new String(publish.getPayloadAsBytes()).trim();
-                        boolean newState = msg.equalsIgnoreCase("ON");
-
-                        Log.i(TAG, "AI Mode command: '" + msg + "' → " + newState);
-
-                        runOnUiThread(() -> {
-                            if (newState && !aiEnabled) {
-                                Log.i(TAG, "ACTIVATING AI MODE");
-                                Toast.makeText(this, "AI Mode Activated", Toast.LENGTH_SHORT).show();
-                                startAIDetection();
-                            } else if (!newState && aiEnabled) {
-                                Log.i(TAG, "DEACTIVATING AI MODE");
-                                Toast.makeText(this, "Manual Control", Toast.LENGTH_SHORT).show();
-                                stopAIDetection();
-                            }
-                        });
-                    })
-                    .send()
-                    .whenComplete((ack, throwable) -> {
-                        if (throwable != null) {
-                            Log.e(TAG, "Failed to subscribe: " + throwable.getMessage());
-                        } else {
-                            Log.d(TAG, "Subscribed to AI topic: " + topic);
-                        }
-                    });
-        } catch (Exception e) {
-            Log.e(TAG, "Subscribe error: " + e.getMessage());
-        }
+        mqtt.subscribe(topic, aiModeListener);
     }
 
+    private final MqttManager.MessageListener aiModeListener = (topic, payload, retained) -> {
+        String msg = new String(payload).trim();
+        // "ON" or "ON:<engine>" picks the detection engine, e.g. "ON:tflite"
+        int separator = msg.indexOf(':');
+        String command = separator < 0 ? msg : msg.substring(0, separator);
+        String engine = separator < 0 ? null : msg.substring(separator + 1).trim();
+        boolean newState = command.equalsIgnoreCase("ON");
+
+        Log.i(TAG, "AI Mode command: '" + msg + "' → " + newState);
+
+        runOnUiThread(() -> {
+            if (newState && aiHelper != null) {
+                if (engine != null && !PersonDetectors.isAvailable(this, engine)) {
+                    Toast.makeText(this, engine + " model not installed, using ML Kit", Toast.LENGTH_SHORT).show();
+                    aiHelper.setDetectorEngine(null);
+                } else {
+                    aiHelper.setDetectorEngine(engine);
+                }
+            }
+            if (newState && !aiEnabled) {
+                Log.i(TAG, "ACTIVATING AI MODE");
+                Toast.makeText(this, "AI Mode Activated", Toast.LENGTH_SHORT).show();
+                startAIDetection();
+            } else if (!newState && aiEnabled) {
+                Log.i(TAG, "DEACTIVATING AI MODE");
+                Toast.makeText(this, "Manual Control", Toast.LENGTH_SHORT).show();
+                stopAIDetection();
+            }
+        });
+    };
+
     private void startAIDetection() {
         if (!cameraPermissionGranted) {
             Log.e(TAG, "No camera permission");
@@ -218,8 +220,13 @@ public class UserActivity extends AppCompatActivity {
         }
 
         Log.i(TAG, "Starting AI person tracking...");
+        // One camera pipeline: detection reads the frames Agora is already streaming
+        aiHelper.setAgoraSource(agora);
         aiHelper.startDetection();
         aiEnabled = true;
+
+        metricsOverlay.setVisibility(View.VISIBLE);
+        metricsOverlay.post(metricsRefresh);
     }
 
     private void stopAIDetection() {
@@ -228,8 +235,21 @@ public class UserActivity extends AppCompatActivity {
             aiEnabled = false;
             Log.d(TAG, "AI stopped");
         }
+        metricsOverlay.removeCallbacks(metricsRefresh);
+        metricsOverlay.setVisibility(View.GONE);
     }
 
+    private final Runnable metricsRefresh = new Runnable() {
+        @Override
+        public void run() {
+            if (aiHelper == null || !aiEnabled) {
+                return;
+            }
+            metricsOverlay.setText(aiHelper.getMetrics().toString());
+            metricsOverlay.postDelayed(this, METRICS_REFRESH_MS);
+        }
+    };
+
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions,
                                            @NonNull int[] grantResults) {
@@ -277,11 +297,20 @@ public class UserActivity extends AppCompatActivity {
     protected void onDestroy() {
         Log.d(TAG, "Cleanup");
 
+        if (metricsOverlay != null) {
+            metricsOverlay.removeCallbacks(metricsRefresh);
+        }
+
+        // Released here, not after the Agora teardown: a screen opened meanwhile has its own claim
+        if (robotChannel != null) {
+            robotChannel.releasePresence();
+        }
+
         if (backgroundExecutor != null && !backgroundExecutor.isShutdown()) {
             backgroundExecutor.execute(() -> {
                 try {
-                    if (aiHelper != null && aiEnabled) {
-                        aiHelper.stopDetection();
+                    if (aiHelper != null) {
+                        aiHelper.release();
                     }
 
                     if (agora != null) {
@@ -289,16 +318,14 @@ public class UserActivity extends AppCompatActivity {
                         Thread.sleep(300);
                         agora.destroy();
                     }
-
-                    if (mqtt != null) {
-                        String statusTopic = "robot/" + robotID + "/status";
-                        mqtt.publish(statusTopic, "offline");
-                        mqtt.disconnect();
-                    }
-
                 } catch (Exception e) {
                     Log.e(TAG, "Cleanup error: " + e.getMessage());
                 } finally {
+                    // Even if the AI or Agora teardown failed: a missed release keeps the connection open for good
+                    if (mqtt != null) {
+                        mqtt.unsubscribe(aiTopic, aiModeListener);
+                        SharedMqttManager.release();
+                    }
                     backgroundExecutor.shutdown();
                 }
             });
@@ -0,0 +1,215 @@
+package com.example.myapplication.agora;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.agora.base.NV21Buffer;
+import io.agora.base.VideoFrame;
+import io.agora.rtc2.video.IVideoFrameObserver;
+
+/**
+ * Taps the frames Agora captures for the call and hands them on as NV21, so AI mode can
+ * share the camera with streaming instead of opening it a second time.
+ * <p>
+ * Frames are asked for in NV21, and an {@link NV21Buffer}'s bytes are passed on without
+ * a copy; the buffer is retained until {@link Frame#release()}. Like CameraX's
+ * KEEP_ONLY_LATEST, at most one frame waits for the listener and a newer one replaces it.
+ */
+public class AgoraFrameSource implements IVideoFrameObserver {
+
+    private static final String TAG = "AgoraFrameSource";
+
+    public interface Listener {
+        // Runs on the source's executor; the frame must be released when done with
+        void onFrame(Frame frame);
+    }
+
+    public static final class Frame {
+        public final byte[] nv21;
+        public final int width;
+        public final int height;
+        public final int rotationDegrees;
+        public final long timestampNs;
+
+        // Agora's buffer behind nv21, or null when nv21 is a converted copy
+        private final VideoFrame.Buffer retained;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Frame(byte[] nv21, int width, int height, int rotationDegrees, long timestampNs,
+                      VideoFrame.Buffer retained) {
+            this.nv21 = nv21;
+            this.width = width;
+            this.height = height;
+            this.rotationDegrees = rotationDegrees;
+            this.timestampNs = timestampNs;
+            this.retained = retained;
+        }
+
+        // Hands the buffer back to Agora; safe to call more than once
+        public void release() {
+            if (retained != null && released.compareAndSet(false, true)) {
+                retained.release();
+            }
+        }
+    }
+
+    private final Executor executor;
+    private final Listener listener;
+    private final AtomicReference<Frame> pending = new AtomicReference<>();
+    private volatile boolean active = true;
+    private boolean warnedConversion = false;
+
+    public AgoraFrameSource(Executor executor, Listener listener) {
+        this.executor = executor;
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean onCaptureVideoFrame(int sourceType, VideoFrame videoFrame) {
+        if (!active) {
+            return true;
+        }
+        Frame frame = wrap(videoFrame);
+        if (frame == null) {
+            return true;
+        }
+
+        Frame previous = pending.getAndSet(frame);
+        if (previous != null) {
+            // The listener has not caught up; it gets this newer frame instead
+            previous.release();
+            return true;
+        }
+        try {
+            executor.execute(this::deliver);
+        } catch (RejectedExecutionException e) {
+            Frame dropped = pending.getAndSet(null);
+            if (dropped != null) {
+                dropped.release();
+            }
+        }
+        // Read-only observer: the call always gets the frame unchanged
+        return true;
+    }
+
+    private void deliver() {
+        Frame frame = pending.getAndSet(null);
+        if (frame == null) {
+            return;
+        }
+        if (!active) {
+            frame.release();
+            return;
+        }
+        listener.onFrame(frame);
+    }
+
+    private Frame wrap(VideoFrame videoFrame) {
+        VideoFrame.Buffer buffer = videoFrame.getBuffer();
+        int rotation = videoFrame.getRotation();
+        long timestampNs = videoFrame.getTimestampNs();
+
+        if (buffer instanceof NV21Buffer) {
+            buffer.retain();
+            return new Frame(((NV21Buffer) buffer).getData(), buffer.getWidth(), buffer.getHeight(),
+                    rotation, timestampNs, buffer);
+        }
+
+        // Texture or I420 capture despite the NV21 preference: one conversion, still no second camera
+        if (!warnedConversion) {
+            Log.w(TAG, "⚠️ Agora frames are " + buffer.getClass().getSimpleName() + ", converting to NV21");
+            warnedConversion = true;
+        }
+        VideoFrame.I420Buffer i420 = buffer.toI420();
+        if (i420 == null) {
+            return null;
+        }
+        try {
+            // NV21 needs even dimensions; an odd last row or column is dropped
+            return new Frame(toNv21(i420), i420.getWidth() & ~1, i420.getHeight() & ~1,
+                    rotation, timestampNs, null);
+        } finally {
+            i420.release();
+        }
+    }
+
+    private static byte[] toNv21(VideoFrame.I420Buffer i420) {
+        int width = i420.getWidth() & ~1;
+        int height = i420.getHeight() & ~1;
+        byte[] nv21 = new byte[width * height + width * height / 2];
+
+        ByteBuffer y = i420.getDataY();
+        int out = 0;
+        for (int row = 0; row < height; row++) {
+            y.position(row * i420.getStrideY());
+            y.get(nv21, out, width);
+            out += width;
+        }
+        ByteBuffer u = i420.getDataU();
+        ByteBuffer v = i420.getDataV();
+        for (int row = 0; row < height / 2; row++) {
+            int uRow = row * i420.getStrideU();
+            int vRow = row * i420.getStrideV();
+            for (int col = 0; col < width / 2; col++) {
+                nv21[out++] = v.get(vRow + col);
+                nv21[out++] = u.get(uRow + col);
+            }
+        }
+        return nv21;
+    }
+
+    // No more frames are delivered; one still waiting is released
+    public void stop() {
+        active = false;
+        Frame frame = pending.getAndSet(null);
+        if (frame != null) {
+            frame.release();
+        }
+    }
+
+    @Override
+    public boolean onPreEncodeVideoFrame(int sourceType, VideoFrame videoFrame) {
+        return true;
+    }
+
+    @Override
+    public boolean onMediaPlayerVideoFrame(VideoFrame videoFrame, int mediaPlayerId) {
+        return true;
+    }
+
+    @Override
+    public boolean onRenderVideoFrame(String channelId, int uid, VideoFrame videoFrame) {
+        return true;
+    }
+
+    @Override
+    public int getVideoFrameProcessMode() {
+        return PROCESS_MODE_READ_ONLY;
+    }
+
+    @Override
+    public int getVideoFormatPreference() {
+        return VIDEO_PIXEL_NV21;
+    }
+
+    // Unrotated and unmirrored, like CameraX analysis frames
+    @Override
+    public boolean getRotationApplied() {
+        return false;
+    }
+
+    @Override
+    public boolean getMirrorApplied() {
+        return false;
+    }
+
+    @Override
+    public int getObservedFramePosition() {
+        return POSITION_POST_CAPTURER;
+    }
+}
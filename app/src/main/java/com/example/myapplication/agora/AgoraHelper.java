@@ -8,6 +8,7 @@ import android.view.SurfaceView;
 import android.view.ViewGroup;
 
 import io.agora.rtc2.*;
+import io.agora.rtc2.video.IVideoFrameObserver;
 import io.agora.rtc2.video.VideoCanvas;
 import io.agora.rtc2.video.VideoEncoderConfiguration;
 
@@ -114,6 +115,27 @@ public class AgoraHelper {
         }
     }
 
+    /**
+     * Observes captured video frames, e.g. with an {@link AgoraFrameSource}; null removes
+     * the observer.
+     *
+     * @return false if the engine refused it
+     */
+    public boolean registerVideoFrameObserver(IVideoFrameObserver observer) {
+        if (engine == null) {
+            Log.e(TAG, "Cannot observe frames - engine is null");
+            return false;
+        }
+
+        int result = engine.registerVideoFrameObserver(observer);
+        if (result == 0) {
+            Log.d(TAG, observer != null ? "Video frame observer registered" : "Video frame observer removed");
+            return true;
+        }
+        Log.e(TAG, "Failed to register video frame observer. Error: " + result);
+        return false;
+    }
+
     public void leave() {
         if (engine != null) {
             try {
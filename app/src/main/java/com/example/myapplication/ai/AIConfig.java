@@ -0,0 +1,57 @@
+package com.example.myapplication.ai;
+
+public class AIConfig {
+    // A detection slower than this (rolling average) makes the scheduler back off further
+    public static final long MAX_INFERENCE_LATENCY_MS = 120;
+
+    // Fraction of one CPU core the detector may keep busy on average
+    public static final double MAX_DETECTOR_CPU_SHARE = 0.5;
+
+    // Upper bound on detections per second, even on a fast phone
+    public static final double MAX_DETECTION_RATE_HZ = 15;
+
+    // Detections allowed to overlap; copying the next frame does not wait for the last result
+    public static final int MAX_IN_FLIGHT = 2;
+
+    // Take frames from the Agora call's capture instead of binding a CameraX analysis of our
+    // own; falls back to CameraX when no call is set up
+    public static final boolean USE_AGORA_FRAMES = true;
+
+    // Requested analysis resolution (sensor orientation); CameraX picks the closest lower size
+    public static final int ANALYSIS_WIDTH = 640;
+    public static final int ANALYSIS_HEIGHT = 480;
+
+    // Detect on a crop around the last target instead of the whole frame
+    public static final boolean ROI_ENABLED = true;
+
+    // Crop margin around the last box, as a fraction of the box size on each side
+    public static final float ROI_MARGIN = 0.5f;
+
+    // A crop never shrinks below this fraction of the frame on either axis
+    public static final float ROI_MIN_FRACTION = 0.35f;
+
+    // Every Nth detection looks at the whole frame again, so new people are not missed
+    public static final int FULL_FRAME_EVERY = 8;
+
+    // Detection engine when none is requested: PersonDetectors.ENGINE_MLKIT or ENGINE_TFLITE
+    public static final String DEFAULT_DETECTOR_ENGINE = PersonDetectors.ENGINE_MLKIT;
+
+    // Person-only uint8 model in assets, stored uncompressed so it can be memory-mapped.
+    // Not part of the repository: drop the model into app/src/main/assets under this name.
+    // Without it the TFLite engine is unavailable and requests for it get ML Kit.
+    public static final String TFLITE_MODEL_ASSET = "person_detector.tflite";
+
+    // XNNPACK worker threads; more than the big cores only adds contention
+    public static final int TFLITE_THREADS = 2;
+
+    public static final float TFLITE_MIN_SCORE = 0.5f;
+
+    // Flight recorder of detections and commands in the app's files dir; read it with DecisionLogReader
+    public static final boolean DECISION_LOG_ENABLED = true;
+    public static final String DECISION_LOG_FILE = "ai_decisions.bin";
+
+    // 128-byte slots: 32768 is 4 MB, about 20 minutes of following
+    public static final int DECISION_LOG_SLOTS = 32768;
+
+    private AIConfig() {}
+}
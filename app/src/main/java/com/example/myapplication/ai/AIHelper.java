@@ -2,63 +2,143 @@ package com.example.myapplication.ai;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.graphics.Rect;
+import android.os.SystemClock;
 import android.util.Log;
+import android.util.Size;
 
 import androidx.annotation.OptIn;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ExperimentalGetImage;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageProxy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.core.content.ContextCompat;
 import androidx.lifecycle.LifecycleOwner;
 
-import com.example.myapplication.service.MqttManager;
+import com.example.myapplication.agora.AgoraFrameSource;
+import com.example.myapplication.agora.AgoraHelper;
+import com.example.myapplication.decision.CommandSink;
+import com.example.myapplication.decision.DecisionConfig;
+import com.example.myapplication.decision.DecisionLog;
+import com.example.myapplication.decision.Detection;
+import com.example.myapplication.decision.FollowDecider;
+import com.example.myapplication.decision.PersonTracker;
+import com.example.myapplication.protocol.CommandFrame;
+import com.example.myapplication.service.RobotChannel;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.mlkit.vision.common.InputImage;
-import com.google.mlkit.vision.objects.DetectedObject;
-import com.google.mlkit.vision.objects.ObjectDetection;
-import com.google.mlkit.vision.objects.ObjectDetector;
-import com.google.mlkit.vision.objects.defaults.ObjectDetectorOptions;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class AIHelper {
 
     private static final String TAG = "AIHelper";
 
     private final LifecycleOwner lifecycleOwner;
-    private final MqttManager mqtt;
-    private final String robotTopic;
+    private final RobotChannel robotChannel;
 
     private ProcessCameraProvider cameraProvider;
-    private final ExecutorService cameraExecutor;
-    private ObjectDetector detector;
+    // Shared capture of the Agora call, used instead of CameraX when set
+    private AgoraHelper agora;
+    private AgoraFrameSource agoraFrames;
+    // Analysis, tracking and the control tick all run on this one thread; it lives until release()
+    private final ScheduledExecutorService cameraExecutor;
+    private PersonDetector detector;
+    // Engine asked for last, or null for the default; recreates the detector after a stop
+    private String engine;
 
     private int frameCount = 0;
-    private String lastCommand = "";
-    private boolean isDetecting = false;
-    private int noPersonFrameCount = 0;
-    private static final int NO_PERSON_THRESHOLD = 10;
+    // Written on the caller's thread, read on the analysis thread to drop work queued before a stop
+    private volatile boolean isDetecting = false;
 
-    public AIHelper(LifecycleOwner lifecycleOwner, MqttManager mqtt, String robotTopic) {
+    private final InferenceScheduler scheduler = new InferenceScheduler(
+            AIConfig.MAX_INFERENCE_LATENCY_MS, AIConfig.MAX_DETECTOR_CPU_SHARE, AIConfig.MAX_DETECTION_RATE_HZ,
+            AIConfig.MAX_IN_FLIGHT);
+
+    // Always-on per-stage latency, readable from any thread
+    private final TrackingMetrics metrics = new TrackingMetrics();
+
+    // Capture time of the newest frame whose result was applied; older results arriving later are dropped
+    private long lastAppliedCaptureNs = Long.MIN_VALUE;
+    // At most one camera or Agora buffer is held across a detection, the rest are copied
+    private boolean holdingSourceFrame = false;
+
+    // Tracking, steering and what to publish; pure Java, so it can be replayed off-device
+    private final DecisionConfig decisionConfig = new DecisionConfig();
+    private final FollowDecider decider;
+    private ScheduledFuture<?> controlTick;
+
+    // What the decider saw and sent, kept in a ring file for looking into misbehaviour later.
+    // Opened for each detection session on the analysis thread; null while stopped or if off
+    private DecisionLog decisionLog;
+
+    // Region-of-interest detection around the tracked target (upright frame coordinates)
+    private final RoiCropper roiCropper = new RoiCropper();
+    private int detectionsSinceFullFrame = 0;
+
+    public AIHelper(LifecycleOwner lifecycleOwner, RobotChannel robotChannel) {
         this.lifecycleOwner = lifecycleOwner;
-        this.mqtt = mqtt;
-        this.robotTopic = robotTopic;
+        this.robotChannel = robotChannel;
 
-        cameraExecutor = Executors.newSingleThreadExecutor();
+        cameraExecutor = Executors.newSingleThreadScheduledExecutor();
+        decider = new FollowDecider(decisionConfig, new RobotSink());
 
-        ObjectDetectorOptions options = new ObjectDetectorOptions.Builder()
-                .setDetectorMode(ObjectDetectorOptions.STREAM_MODE)
-                .enableMultipleObjects()
-                .enableClassification()
-                .build();
+        detector = PersonDetectors.create((Context) lifecycleOwner, null);
+        Log.d(TAG, "AIHelper initialized - Will use FRONT camera for person tracking (" + detector.getName() + ")");
+    }
 
-        detector = ObjectDetection.getClient(options);
-        Log.d(TAG, "AIHelper initialized - Will use FRONT camera for person tracking");
+    private static DecisionLog openDecisionLog(Context context) {
+        if (!AIConfig.DECISION_LOG_ENABLED) {
+            return null;
+        }
+        File file = new File(context.getFilesDir(), AIConfig.DECISION_LOG_FILE);
+        try {
+            return DecisionLog.open(file, AIConfig.DECISION_LOG_SLOTS);
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Decision log unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Swaps the detection engine, also while detection is running. The swap happens on the
+     * analysis thread, between frames.
+     */
+    public void setDetectorEngine(String engine) {
+        if (cameraExecutor.isShutdown()) {
+            return;
+        }
+        String wanted = engine != null ? engine : AIConfig.DEFAULT_DETECTOR_ENGINE;
+        cameraExecutor.execute(() -> {
+            this.engine = wanted;
+            if (detector == null || detector.getName().equalsIgnoreCase(wanted)) {
+                // Already in use, or stopped and created by the next startDetection()
+                return;
+            }
+            PersonDetector previous = detector;
+            detector = PersonDetectors.create((Context) lifecycleOwner, wanted);
+            if (previous != null) {
+                previous.close();
+            }
+            Log.i(TAG, "Detector engine: " + detector.getName());
+        });
+    }
+
+    /**
+     * Lets detection run on the frames Agora captures for the call, so the camera is
+     * opened once. Takes effect on the next {@link #startDetection()}.
+     */
+    public void setAgoraSource(AgoraHelper agora) {
+        this.agora = agora;
     }
 
     public void startDetection() {
@@ -69,7 +149,33 @@ public class AIHelper {
 
         Log.i(TAG, "Starting AI PERSON TRACKING with FRONT camera...");
         isDetecting = true;
-        noPersonFrameCount = 0;
+        metrics.reset();
+
+        cameraExecutor.execute(() -> {
+            if (detector == null) {
+                // Closed by the previous stopDetection()
+                detector = PersonDetectors.create((Context) lifecycleOwner, engine);
+            }
+            long now = SystemClock.uptimeMillis();
+            decisionLog = openDecisionLog((Context) lifecycleOwner);
+            decider.start(now);
+            if (decisionLog != null) {
+                decisionLog.recordSessionStart(now);
+            }
+        });
+        controlTick = cameraExecutor.scheduleAtFixedRate(this::onControlTick,
+                decisionConfig.controlTickMs, decisionConfig.controlTickMs, TimeUnit.MILLISECONDS);
+
+        if (AIConfig.USE_AGORA_FRAMES && agora != null) {
+            agoraFrames = new AgoraFrameSource(cameraExecutor, this::analyzeAgoraFrame);
+            if (agora.registerVideoFrameObserver(agoraFrames)) {
+                Log.i(TAG, "AI mode active - analyzing the Agora call's camera frames!");
+                return;
+            }
+            agoraFrames.stop();
+            agoraFrames = null;
+            Log.w(TAG, "⚠️ Agora frames unavailable, opening the camera for AI");
+        }
 
         ListenableFuture<ProcessCameraProvider> cameraProviderFuture =
                 ProcessCameraProvider.getInstance((Context) lifecycleOwner);
@@ -94,7 +200,15 @@ public class AIHelper {
         cameraProvider.unbindAll();
         Log.d(TAG, "📹 Preparing camera for AI mode...");
 
+        // Fewer pixels per inference: detection does not need preview resolution
+        ResolutionSelector resolution = new ResolutionSelector.Builder()
+                .setResolutionStrategy(new ResolutionStrategy(
+                        new Size(AIConfig.ANALYSIS_WIDTH, AIConfig.ANALYSIS_HEIGHT),
+                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                .build();
+
         ImageAnalysis analysis = new ImageAnalysis.Builder()
+                .setResolutionSelector(resolution)
                 .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                 .build();
 
@@ -119,10 +233,16 @@ public class AIHelper {
     @OptIn(markerClass = ExperimentalGetImage.class)
     @SuppressLint("UnsafeOptInUsageError")
     private void analyzeFrame(ImageProxy image) {
+        if (!isDetecting) {
+            image.close();
+            return;
+        }
+        boolean started = false;
         try {
             frameCount++;
+            metrics.capture.recordMicros(captureAgeMicros(image.getImageInfo().getTimestamp()));
             if (frameCount % 30 == 0) {
-                Log.d(TAG, "📸 AI analyzing frame #" + frameCount);
+                Log.d(TAG, "📸 AI analyzing frame #" + frameCount + " (" + scheduler + ")");
             }
 
             if (image.getImage() == null) {
@@ -130,142 +250,303 @@ public class AIHelper {
                 return;
             }
 
-            InputImage inputImage = InputImage.fromMediaImage(
-                    image.getImage(),
-                    image.getImageInfo().getRotationDegrees()
-            );
+            int rotation = image.getImageInfo().getRotationDegrees();
+            int sensorWidth = image.getWidth();
+            int sensorHeight = image.getHeight();
+            // Detections come back in the upright frame, which is transposed for 90/270
+            boolean transposed = rotation % 180 != 0;
+            int uprightWidth = transposed ? sensorHeight : sensorWidth;
+            int uprightHeight = transposed ? sensorWidth : sensorHeight;
+
+            long now = SystemClock.uptimeMillis();
+            if (!scheduler.shouldRun(now)) {
+                // Cheap step instead of a detection: steer towards where the target should be by now
+                decider.onSkippedFrame(uprightWidth, uprightHeight, now);
+                image.close();
+                return;
+            }
+
+            started = true;
+            final long captureNs = image.getImageInfo().getTimestamp();
+
+            long conversionStart = System.nanoTime();
+            DetectorFrame frame;
+            Rect roi = chooseRoi(uprightWidth, uprightHeight, now);
+            if (roi != null || !detector.acceptsMediaImage() || holdingSourceFrame) {
+                // The copy lets the camera frame go back to CameraX right away
+                Rect sensorRoi = roi != null
+                        ? RoiCropper.toSensor(roi, rotation, sensorWidth, sensorHeight)
+                        : new Rect(0, 0, sensorWidth, sensorHeight);
+                byte[] nv21 = roiCropper.crop(image, sensorRoi);
+                Rect sensorCrop = roiCropper.getCroppedRect();
+                Rect uprightCrop = RoiCropper.toUpright(sensorCrop, rotation, sensorWidth, sensorHeight);
+                frame = DetectorFrame.ofNv21(nv21, sensorCrop.width(), sensorCrop.height(), rotation,
+                        uprightCrop.left, uprightCrop.top, uprightWidth, uprightHeight);
+                image.close();
+            } else {
+                frame = DetectorFrame.ofMediaImage(image.getImage(), rotation, uprightWidth, uprightHeight);
+            }
 
-            detector.process(inputImage)
-                    .addOnSuccessListener(objects -> {
-                        processObjects(objects, image.getWidth(), image.getHeight());
-                        image.close();
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Detection failed: " + e.getMessage());
-                        image.close();
-                    });
+            metrics.conversion.recordSince(conversionStart);
+
+            // The camera buffer stays with CameraX's image until the result is in
+            Runnable releaseSource = frame.mediaImage != null ? image::close : null;
+            detect(frame, now, captureNs, uprightWidth, uprightHeight, releaseSource);
 
         } catch (Exception e) {
             Log.e(TAG, "Error analyzing frame: " + e.getMessage());
+            if (started) {
+                scheduler.onInferenceFailed();
+            }
             image.close();
         }
     }
 
-    private void processObjects(List<DetectedObject> objects, int imageWidth, int imageHeight) {
-        DetectedObject largestPerson = null;
-        int largestPersonArea = 0;
-
-        for (DetectedObject obj : objects) {
-            if (isPerson(obj, imageWidth, imageHeight)) {
-                int area = obj.getBoundingBox().width() * obj.getBoundingBox().height();
+    /**
+     * Age of a frame from its sensor timestamp. Depending on the device that timestamp is
+     * on the uptime or the realtime clock; the nearer one is the right one.
+     */
+    private static long captureAgeMicros(long sensorTimestampNs) {
+        long sinceUptime = System.nanoTime() - sensorTimestampNs;
+        long sinceRealtime = SystemClock.elapsedRealtimeNanos() - sensorTimestampNs;
+        long age = Math.abs(sinceUptime) < Math.abs(sinceRealtime) ? sinceUptime : sinceRealtime;
+        return Math.max(0, age) / 1_000;
+    }
 
-                if (area > largestPersonArea) {
-                    largestPersonArea = area;
-                    largestPerson = obj;
-                }
-            }
+    /**
+     * Agora's counterpart of {@link #analyzeFrame}: the frame is already NV21, so the
+     * detector reads Agora's buffer directly unless a crop or a held buffer calls for a copy.
+     */
+    private void analyzeAgoraFrame(AgoraFrameSource.Frame source) {
+        if (!isDetecting) {
+            source.release();
+            return;
         }
+        boolean started = false;
+        try {
+            frameCount++;
+            metrics.capture.recordMicros(captureAgeMicros(source.timestampNs));
+            if (frameCount % 30 == 0) {
+                Log.d(TAG, "📸 AI analyzing Agora frame #" + frameCount + " (" + scheduler + ")");
+            }
 
-        if (largestPerson == null) {
-            noPersonFrameCount++;
+            int rotation = source.rotationDegrees;
+            boolean transposed = rotation % 180 != 0;
+            int uprightWidth = transposed ? source.height : source.width;
+            int uprightHeight = transposed ? source.width : source.height;
 
-            if (frameCount % 30 == 0) {
-                Log.d(TAG, "No person (count: " + noPersonFrameCount + "/" + NO_PERSON_THRESHOLD + ")");
+            long now = SystemClock.uptimeMillis();
+            if (!scheduler.shouldRun(now)) {
+                decider.onSkippedFrame(uprightWidth, uprightHeight, now);
+                source.release();
+                return;
             }
 
-            if (noPersonFrameCount >= NO_PERSON_THRESHOLD && !lastCommand.equals("STOP")) {
-                Log.w(TAG, "No person detected - STOPPING");
-                sendCommand("STOP");
-                lastCommand = "STOP";
+            started = true;
+            long conversionStart = System.nanoTime();
+            DetectorFrame frame;
+            Runnable releaseSource = null;
+            Rect roi = chooseRoi(uprightWidth, uprightHeight, now);
+            if (roi != null || holdingSourceFrame) {
+                Rect sensorRoi = roi != null
+                        ? RoiCropper.toSensor(roi, rotation, source.width, source.height)
+                        : new Rect(0, 0, source.width, source.height);
+                byte[] nv21 = roiCropper.crop(source.nv21, source.width, source.height, sensorRoi);
+                Rect sensorCrop = roiCropper.getCroppedRect();
+                Rect uprightCrop = RoiCropper.toUpright(sensorCrop, rotation, source.width, source.height);
+                frame = DetectorFrame.ofNv21(nv21, sensorCrop.width(), sensorCrop.height(), rotation,
+                        uprightCrop.left, uprightCrop.top, uprightWidth, uprightHeight);
+                source.release();
+            } else {
+                frame = DetectorFrame.ofNv21(source.nv21, source.width, source.height, rotation,
+                        0, 0, uprightWidth, uprightHeight);
+                releaseSource = source::release;
             }
-            return;
-        }
+            metrics.conversion.recordSince(conversionStart);
+
+            detect(frame, now, source.timestampNs, uprightWidth, uprightHeight, releaseSource);
 
-        noPersonFrameCount = 0;
+        } catch (Exception e) {
+            Log.e(TAG, "Error analyzing Agora frame: " + e.getMessage());
+            if (started) {
+                scheduler.onInferenceFailed();
+            }
+            source.release();
+        }
+    }
 
-        int centerX = largestPerson.getBoundingBox().centerX();
-        int frameCenter = imageWidth / 2;
-        int tolerance = imageWidth / 6;
+    /**
+     * Runs the detector on a prepared frame. {@code releaseSource} hands back the camera
+     * or Agora buffer the frame points into, or is null when the frame is a pooled copy.
+     */
+    private void detect(DetectorFrame frame, long frameTimeMs, long captureNs,
+                        int uprightWidth, int uprightHeight, Runnable releaseSource) {
+        // Completion runs on the analysis thread, which owns the scheduler and tracking state.
+        // Up to MAX_IN_FLIGHT detections overlap, so results may arrive out of order.
+        long inferenceStart = System.nanoTime();
+        detector.detect(frame, cameraExecutor, new PersonDetector.Listener() {
+            @Override
+            public void onDetections(List<Detection> people) {
+                metrics.inference.recordSince(inferenceStart);
+                scheduler.onInferenceDone(frameTimeMs, SystemClock.uptimeMillis());
+                finishFrame(frame, releaseSource);
+                if (!isDetecting) {
+                    // Finished after stopDetection(); the decider must not steer again
+                    return;
+                }
+                if (captureNs <= lastAppliedCaptureNs) {
+                    // A newer frame already steered; applying this one would step back in time
+                    scheduler.onStaleResult();
+                    return;
+                }
+                lastAppliedCaptureNs = captureNs;
+                long decisionStart = System.nanoTime();
+                processDetections(people, uprightWidth, uprightHeight, frameTimeMs);
+                metrics.decision.recordSince(decisionStart);
+            }
 
-        double areaRatio = (double) largestPersonArea / (imageWidth * imageHeight);
+            @Override
+            public void onFailure(Exception e) {
+                scheduler.onInferenceFailed();
+                Log.e(TAG, "Detection failed: " + e.getMessage());
+                finishFrame(frame, releaseSource);
+            }
+        });
+        holdingSourceFrame |= releaseSource != null;
+    }
 
-        String cmd;
-        if (centerX < frameCenter - tolerance) {
-            cmd = "RIGHT";
-        } else if (centerX > frameCenter + tolerance) {
-            cmd = "LEFT";
+    // Hands the frame's pixels back: the source buffer to CameraX or Agora, or the copy to the pool
+    private void finishFrame(DetectorFrame frame, Runnable releaseSource) {
+        if (releaseSource != null) {
+            holdingSourceFrame = false;
+            releaseSource.run();
         } else {
-            cmd = "FORWARD";
+            roiCropper.release(frame.nv21);
         }
+    }
 
-        if (frameCount % 15 == 0 || !cmd.equals(lastCommand)) {
-            Log.i(TAG, "👤 TRACKING | Pos: " + centerX + "/" + imageWidth +
-                    " | Size: " + String.format("%.1f%%", areaRatio * 100) + " | CMD: " + cmd);
+    /**
+     * Crop to detect on next, in upright coordinates, or null for the full frame: when
+     * cropping is off, there is no target, or a periodic full-frame pass is due.
+     */
+    private Rect chooseRoi(int frameWidth, int frameHeight, long nowMs) {
+        PersonTracker tracker = decider.getTracker();
+        PersonTracker.Track target = tracker.getTarget();
+        if (!AIConfig.ROI_ENABLED || target == null || ++detectionsSinceFullFrame >= AIConfig.FULL_FRAME_EVERY) {
+            detectionsSinceFullFrame = 0;
+            return null;
         }
 
-        if (!cmd.equals(lastCommand)) {
-            sendCommand(cmd);
-            lastCommand = cmd;
+        int boxWidth = Math.round(target.getWidth());
+        int boxHeight = Math.round(target.getHeight());
+        int minWidth = Math.round(frameWidth * AIConfig.ROI_MIN_FRACTION);
+        int minHeight = Math.round(frameHeight * AIConfig.ROI_MIN_FRACTION);
+        int width = Math.max(Math.round(boxWidth * (1 + 2 * AIConfig.ROI_MARGIN)), minWidth);
+        int height = Math.max(Math.round(boxHeight * (1 + 2 * AIConfig.ROI_MARGIN)), minHeight);
+
+        // Centre on the predicted position, then slide back inside the frame
+        int centerX = Math.round(tracker.predictTargetX(nowMs));
+        int centerY = Math.round(tracker.predictTargetY(nowMs));
+        int left = Math.max(0, Math.min(centerX - width / 2, frameWidth - width));
+        int top = Math.max(0, Math.min(centerY - height / 2, frameHeight - height));
+        Rect roi = new Rect(left, top, Math.min(frameWidth, left + width), Math.min(frameHeight, top + height));
+
+        if (roi.width() * roi.height() >= frameWidth * frameHeight * 3 / 4) {
+            // Not worth the copy
+            return null;
         }
+        return roi;
     }
 
-    private boolean isPerson(DetectedObject obj, int imageWidth, int imageHeight) {
-        if (obj.getLabels() != null && !obj.getLabels().isEmpty()) {
-            for (DetectedObject.Label label : obj.getLabels()) {
-                String labelText = label.getText().toLowerCase();
-
-                if (labelText.contains("person") ||
-                        labelText.contains("human") ||
-                        labelText.contains("people") ||
-                        labelText.contains("face") ||
-                        labelText.contains("man") ||
-                        labelText.contains("woman") ||
-                        labelText.contains("child")) {
-
-                    if (frameCount % 30 == 0) {
-                        Log.d(TAG, "Person: " + label.getText() +
-                                " (" + String.format("%.2f", label.getConfidence()) + ")");
-                    }
-                    return true;
-                }
-            }
+    private void processDetections(List<Detection> people, int imageWidth, int imageHeight, long frameTimeMs) {
+        if (decisionLog != null) {
+            decisionLog.recordFrame(frameTimeMs, imageWidth, imageHeight, people);
         }
 
-        int width = obj.getBoundingBox().width();
-        int height = obj.getBoundingBox().height();
-        float aspectRatio = (float) height / width;
-
-        if (aspectRatio >= 1.3 && aspectRatio <= 3.5) {
-            int area = width * height;
-            int minArea = (imageWidth * imageHeight) / 100;
+        // Positions are stamped with when the frame was taken, not when detection finished
+        PersonTracker.Track target = decider.onDetections(people, imageWidth, imageHeight, frameTimeMs);
 
-            if (area > minArea) {
-                if (frameCount % 60 == 0) {
-                    Log.d(TAG, "Person-like shape: " + String.format("%.2f", aspectRatio));
-                }
-                return true;
+        if (target == null) {
+            if (frameCount % 30 == 0) {
+                Log.d(TAG, "No person (count: " + decider.getNoPersonFrames() + "/"
+                        + decisionConfig.noPersonThreshold + ")");
             }
+            return;
         }
 
-        return false;
+        if (frameCount % 15 == 0) {
+            PersonTracker tracker = decider.getTracker();
+            double areaRatio = (double) (target.getWidth() * target.getHeight()) / (imageWidth * imageHeight);
+            Log.i(TAG, "👤 TRACKING #" + target.getId() + " | Pos: " + Math.round(target.centerX()) + "/" + imageWidth +
+                    " | Size: " + String.format("%.1f%%", areaRatio * 100) +
+                    " | Tracks: " + tracker.getTrackCount() + " | Switches: " + tracker.getTargetSwitches() +
+                    " | Drive: " + decider.getSteering().getSpeed() + "/" + decider.getSteering().getSteering());
+        }
     }
 
-    private void sendCommand(String cmd) {
-        Log.i(TAG, "AI Command: " + cmd);
+    private void onControlTick() {
+        if (!isDetecting) {
+            return;
+        }
         try {
-            mqtt.publish(robotTopic, cmd);
+            decider.onTick(SystemClock.uptimeMillis());
         } catch (Exception e) {
-            Log.e(TAG, "Failed to publish: " + e.getMessage());
+            Log.e(TAG, "Failed to publish drive: " + e.getMessage());
+        }
+    }
+
+    // Publishes the decider's commands to the robot and times the hand-off to MQTT
+    private class RobotSink implements CommandSink {
+
+        @Override
+        public boolean acceptsDrive() {
+            return robotChannel.isBinary();
+        }
+
+        @Override
+        public void sendCommand(int opcode) {
+            Log.i(TAG, "AI Command: " + CommandFrame.nameOf(opcode));
+            if (decisionLog != null) {
+                decisionLog.recordCommand(SystemClock.uptimeMillis(), opcode, 0, 0);
+            }
+            try {
+                long publishStart = System.nanoTime();
+                robotChannel.sendCommand(opcode);
+                metrics.publish.recordSince(publishStart);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to publish: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void sendDrive(int speed, int steering) {
+            long publishStart = System.nanoTime();
+            robotChannel.sendDrive(speed, steering);
+            metrics.publish.recordSince(publishStart);
+            if (decisionLog != null) {
+                decisionLog.recordCommand(SystemClock.uptimeMillis(), CommandFrame.OP_DRIVE, speed, steering);
+            }
         }
     }
 
+    // Per-stage latency since detection was last started
+    public TrackingMetrics getMetrics() {
+        return metrics;
+    }
+
     public void stopDetection() {
         try {
             isDetecting = false;
 
-            if (!lastCommand.equals("STOP")) {
-                sendCommand("STOP");
-                lastCommand = "STOP";
+            if (controlTick != null) {
+                controlTick.cancel(false);
+                controlTick = null;
+            }
+
+            if (agoraFrames != null) {
+                agora.registerVideoFrameObserver(null);
+                agoraFrames.stop();
+                agoraFrames = null;
             }
 
             if (cameraProvider != null) {
@@ -274,18 +555,47 @@ public class AIHelper {
                 Log.d(TAG, "AI camera unbound");
             }
 
-            if (detector != null) {
-                detector.close();
-                detector = null;
+            // The decider and detector belong to the analysis thread, so they are stopped there,
+            // after any frame or tick already queued on it
+            if (!cameraExecutor.isShutdown()) {
+                cameraExecutor.execute(this::teardown);
             }
 
-            if (cameraExecutor != null && !cameraExecutor.isShutdown()) {
-                cameraExecutor.shutdown();
+            Log.i(TAG, "AI detection stopped");
+        } catch (Exception e) {
+            Log.e(TAG, "Error stopping detection: " + e.getMessage());
+        }
+    }
+
+    private void teardown() {
+        try {
+            decider.stop();
+
+            if (decisionLog != null) {
+                // After decider.stop(), so the final STOP is in the log
+                decisionLog.close();
+                decisionLog = null;
             }
 
-            Log.i(TAG, "AI detection stopped");
+            if (detector != null) {
+                detector.close();
+                detector = null;
+            }
         } catch (Exception e) {
             Log.e(TAG, "Error stopping detection: " + e.getMessage());
         }
     }
+
+    /**
+     * Stops detection and shuts the analysis thread down once the stop has run on it. Call
+     * once, when the screen is destroyed; detection can be started and stopped any number of
+     * times before that.
+     */
+    public void release() {
+        stopDetection();
+        if (!cameraExecutor.isShutdown()) {
+            cameraExecutor.shutdown();
+        }
+        Log.d(TAG, "AIHelper released");
+    }
 }
\ No newline at end of file
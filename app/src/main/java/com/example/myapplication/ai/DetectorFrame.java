@@ -0,0 +1,62 @@
+package com.example.myapplication.ai;
+
+import android.media.Image;
+
+/**
+ * One image handed to a {@link PersonDetector}: either a camera {@link Image} (zero copy)
+ * or NV21 bytes, plus where that image sits in the full upright frame.
+ * <p>
+ * The pixel data is only valid until the detector's listener has run.
+ */
+public final class DetectorFrame {
+
+    // Exactly one of these is set
+    public final Image mediaImage;
+    public final byte[] nv21;
+
+    // Size of the pixel data, in sensor orientation
+    public final int width;
+    public final int height;
+    public final int rotationDegrees;
+
+    // Upright position of this image within the full frame (non-zero for a crop)
+    public final int offsetX;
+    public final int offsetY;
+
+    // Size of the full upright frame
+    public final int frameWidth;
+    public final int frameHeight;
+
+    private DetectorFrame(Image mediaImage, byte[] nv21, int width, int height, int rotationDegrees,
+                          int offsetX, int offsetY, int frameWidth, int frameHeight) {
+        this.mediaImage = mediaImage;
+        this.nv21 = nv21;
+        this.width = width;
+        this.height = height;
+        this.rotationDegrees = rotationDegrees;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+    }
+
+    public static DetectorFrame ofMediaImage(Image image, int rotationDegrees, int frameWidth, int frameHeight) {
+        return new DetectorFrame(image, null, image.getWidth(), image.getHeight(), rotationDegrees,
+                0, 0, frameWidth, frameHeight);
+    }
+
+    public static DetectorFrame ofNv21(byte[] nv21, int width, int height, int rotationDegrees,
+                                       int offsetX, int offsetY, int frameWidth, int frameHeight) {
+        return new DetectorFrame(null, nv21, width, height, rotationDegrees,
+                offsetX, offsetY, frameWidth, frameHeight);
+    }
+
+    // Upright size of this image
+    public int uprightWidth() {
+        return rotationDegrees % 180 != 0 ? height : width;
+    }
+
+    public int uprightHeight() {
+        return rotationDegrees % 180 != 0 ? width : height;
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.myapplication.ai;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+
+import com.example.myapplication.decision.Detection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a {@link PersonDetector} over labelled images and reports latency and accuracy,
+ * so engines can be compared on the same inputs.
+ * <p>
+ * Every sample goes through the same NV21 path as a camera crop. Latency is measured
+ * from {@code detect} to the listener; accuracy counts detections matched one-to-one to
+ * ground-truth boxes at the given IoU. Blocking; do not call on the main thread.
+ */
+public class DetectorHarness {
+
+    private static final long TIMEOUT_MS = 5_000;
+
+    /** One labelled image, already converted to NV21. */
+    public static final class Sample {
+        public final String name;
+        final byte[] nv21;
+        final int width;
+        final int height;
+        final List<Detection> truth;
+
+        Sample(String name, byte[] nv21, int width, int height, List<Detection> truth) {
+            this.name = name;
+            this.nv21 = nv21;
+            this.width = width;
+            this.height = height;
+            this.truth = truth;
+        }
+    }
+
+    public static final class Report {
+        public final String engine;
+        public final int runs;
+        public final int failures;
+        public final long meanMs;
+        public final long p50Ms;
+        public final long p90Ms;
+        public final long maxMs;
+        public final int truePositives;
+        public final int falsePositives;
+        public final int falseNegatives;
+
+        Report(String engine, long[] latencies, int failures, int tp, int fp, int fn) {
+            this.engine = engine;
+            this.runs = latencies.length;
+            this.failures = failures;
+            Arrays.sort(latencies);
+            long sum = 0;
+            for (long latency : latencies) {
+                sum += latency;
+            }
+            this.meanMs = runs == 0 ? 0 : sum / runs;
+            this.p50Ms = percentile(latencies, 0.5);
+            this.p90Ms = percentile(latencies, 0.9);
+            this.maxMs = runs == 0 ? 0 : latencies[runs - 1];
+            this.truePositives = tp;
+            this.falsePositives = fp;
+            this.falseNegatives = fn;
+        }
+
+        public double precision() {
+            int detected = truePositives + falsePositives;
+            return detected == 0 ? 0 : (double) truePositives / detected;
+        }
+
+        public double recall() {
+            int expected = truePositives + falseNegatives;
+            return expected == 0 ? 0 : (double) truePositives / expected;
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.floor(p * sorted.length))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d runs (%d failed), latency mean %d / p50 %d / p90 %d / max %d ms, "
+                            + "precision %.2f, recall %.2f",
+                    engine, runs, failures, meanMs, p50Ms, p90Ms, maxMs, precision(), recall());
+        }
+    }
+
+    private final int warmupRuns;
+    private final int timedRuns;
+    private final float minIou;
+
+    /**
+     * @param warmupRuns passes over all samples before measuring (JIT, delegate setup)
+     * @param timedRuns  measured passes over all samples
+     * @param minIou     overlap a detection needs to count as finding a labelled person
+     */
+    public DetectorHarness(int warmupRuns, int timedRuns, float minIou) {
+        this.warmupRuns = warmupRuns;
+        this.timedRuns = timedRuns;
+        this.minIou = minIou;
+    }
+
+    public Report run(PersonDetector detector, List<Sample> samples) throws InterruptedException {
+        for (int pass = 0; pass < warmupRuns; pass++) {
+            for (Sample sample : samples) {
+                detectOnce(detector, sample);
+            }
+        }
+
+        long[] latencies = new long[timedRuns * samples.size()];
+        int measured = 0;
+        int failures = 0;
+        int tp = 0;
+        int fp = 0;
+        int fn = 0;
+        for (int pass = 0; pass < timedRuns; pass++) {
+            for (Sample sample : samples) {
+                long start = SystemClock.elapsedRealtimeNanos();
+                List<Detection> found = detectOnce(detector, sample);
+                long latencyMs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000_000;
+                if (found == null) {
+                    failures++;
+                    fn += sample.truth.size();
+                    continue;
+                }
+                latencies[measured++] = latencyMs;
+                int matched = countMatches(found, sample.truth);
+                tp += matched;
+                fp += found.size() - matched;
+                fn += sample.truth.size() - matched;
+            }
+        }
+        return new Report(detector.getName(), Arrays.copyOf(latencies, measured), failures, tp, fp, fn);
+    }
+
+    // Detections, or null on failure or timeout
+    private static List<Detection> detectOnce(PersonDetector detector, Sample sample) throws InterruptedException {
+        DetectorFrame frame = DetectorFrame.ofNv21(sample.nv21, sample.width, sample.height, 0,
+                0, 0, sample.width, sample.height);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<List<Detection>> result = new AtomicReference<>();
+        detector.detect(frame, Runnable::run, new PersonDetector.Listener() {
+            @Override
+            public void onDetections(List<Detection> detections) {
+                result.set(detections);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                done.countDown();
+            }
+        });
+        if (!done.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        return result.get();
+    }
+
+    // Greedy one-to-one matching: each labelled box takes its best unused detection
+    private int countMatches(List<Detection> found, List<Detection> truth) {
+        boolean[] used = new boolean[found.size()];
+        int matched = 0;
+        for (Detection expected : truth) {
+            int best = -1;
+            float bestIou = minIou;
+            for (int i = 0; i < found.size(); i++) {
+                if (used[i]) {
+                    continue;
+                }
+                float iou = found.get(i).iou(expected.left, expected.top, expected.right, expected.bottom);
+                if (iou >= bestIou) {
+                    bestIou = iou;
+                    best = i;
+                }
+            }
+            if (best >= 0) {
+                used[best] = true;
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Converts an upright image to NV21 (cropped to even dimensions) once, outside of any
+     * measurement.
+     *
+     * @param truth labelled people, in the bitmap's pixel coordinates
+     */
+    public static Sample sample(String name, Bitmap bitmap, List<Detection> truth) {
+        int width = bitmap.getWidth() & ~1;
+        int height = bitmap.getHeight() & ~1;
+        int[] argb = new int[width * height];
+        bitmap.getPixels(argb, 0, width, 0, 0, width, height);
+
+        byte[] nv21 = new byte[width * height * 3 / 2];
+        int chroma = width * height;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int pixel = argb[y * width + x];
+                int r = (pixel >> 16) & 0xFF;
+                int g = (pixel >> 8) & 0xFF;
+                int b = pixel & 0xFF;
+
+                // BT.601 limited range
+                nv21[y * width + x] = (byte) (((66 * r + 129 * g + 25 * b + 128) >> 8) + 16);
+                if ((y & 1) == 0 && (x & 1) == 0) {
+                    int index = chroma + (y >> 1) * width + x;
+                    nv21[index] = (byte) (((112 * r - 94 * g - 18 * b + 128) >> 8) + 128);
+                    nv21[index + 1] = (byte) (((-38 * r - 74 * g + 112 * b + 128) >> 8) + 128);
+                }
+            }
+        }
+        return new Sample(name, nv21, width, height, new ArrayList<>(truth));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.myapplication.ai;
+
+/**
+ * Decides which camera frames go to the detector.
+ * <p>
+ * Up to {@code maxInFlight} detections may overlap, so copying the next frame does not
+ * wait for the previous result. Two exponentially weighted moving averages are kept:
+ * end-to-end latency, and service time (how long each detection kept the detector busy,
+ * i.e. not counting the time it queued behind the one before). The scheduler derives the
+ * minimum spacing between detection starts from them, under two caps: the detector may
+ * use at most {@code maxCpuShare} of one core, and a detection should not take longer
+ * than {@code maxLatencyMs} (if it does, the rate is backed off further so frames never
+ * queue behind a slow detector). Frames that arrive before the next slot are skipped,
+ * and the caller can cover them with a cheap prediction instead.
+ * <p>
+ * Not thread-safe: call from the analysis thread only.
+ */
+public class InferenceScheduler {
+
+    // Weight of the newest sample in the moving average
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final long maxLatencyMs;
+    private final double maxCpuShare;
+    private final long minIntervalMs;
+    private final int maxInFlight;
+
+    private double avgLatencyMs = -1;
+    private double avgServiceMs = -1;
+    private long lastStartMs = Long.MIN_VALUE / 2;
+    private long lastCompletionMs = Long.MIN_VALUE / 2;
+    private int inFlight = 0;
+
+    private int detectedFrames = 0;
+    private int skippedFrames = 0;
+    private int staleResults = 0;
+
+    /**
+     * @param maxLatencyMs  latency budget for one detection
+     * @param maxCpuShare   fraction of one core the detector may use, in (0, 1]
+     * @param maxRateHz     upper bound on detections per second, however fast the detector is
+     * @param maxInFlight   detections that may run at the same time, at least 1
+     */
+    public InferenceScheduler(long maxLatencyMs, double maxCpuShare, double maxRateHz, int maxInFlight) {
+        if (maxLatencyMs <= 0 || maxCpuShare <= 0 || maxCpuShare > 1 || maxRateHz <= 0 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Invalid scheduler caps");
+        }
+        this.maxLatencyMs = maxLatencyMs;
+        this.maxCpuShare = maxCpuShare;
+        this.minIntervalMs = Math.round(1000.0 / maxRateHz);
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * @return true if the frame arriving at {@code nowMs} should be detected; the caller
+     * must then report the outcome through {@link #onInferenceDone} or
+     * {@link #onInferenceFailed}
+     */
+    public boolean shouldRun(long nowMs) {
+        if (inFlight >= maxInFlight || nowMs - lastStartMs < targetIntervalMs()) {
+            skippedFrames++;
+            return false;
+        }
+        inFlight++;
+        lastStartMs = nowMs;
+        detectedFrames++;
+        return true;
+    }
+
+    /**
+     * @param startMs when the detection was started
+     * @param nowMs   when its result arrived
+     */
+    public void onInferenceDone(long startMs, long nowMs) {
+        inFlight = Math.max(0, inFlight - 1);
+
+        long latencyMs = nowMs - startMs;
+        avgLatencyMs = avgLatencyMs < 0
+                ? latencyMs
+                : avgLatencyMs + EWMA_ALPHA * (latencyMs - avgLatencyMs);
+
+        // Busy time of this detection: if it overlapped the previous one, the spacing of
+        // their completions. A detection that ran alone only bounds it from above (part of
+        // it might have overlapped), so it only counts when it lowers the estimate. The
+        // first estimate assumes full overlap; if that is optimistic, the next detections
+        // queue and measure the real spacing.
+        long serviceMs;
+        if (startMs < lastCompletionMs) {
+            serviceMs = nowMs - lastCompletionMs;
+        } else if (avgServiceMs < 0) {
+            serviceMs = Math.max(1, latencyMs / maxInFlight);
+        } else {
+            serviceMs = Math.min(latencyMs, Math.round(avgServiceMs));
+        }
+        lastCompletionMs = nowMs;
+        avgServiceMs = avgServiceMs < 0
+                ? serviceMs
+                : avgServiceMs + EWMA_ALPHA * (serviceMs - avgServiceMs);
+    }
+
+    // A failed detection frees the slot but says nothing reliable about latency
+    public void onInferenceFailed() {
+        inFlight = Math.max(0, inFlight - 1);
+    }
+
+    // A result arrived after a newer one had already been applied, and was thrown away
+    public void onStaleResult() {
+        staleResults++;
+    }
+
+    /**
+     * Spacing between detection starts that keeps the detector within its CPU share;
+     * doubled while it is over the latency budget, so the device gets headroom back.
+     */
+    public long targetIntervalMs() {
+        if (avgLatencyMs < 0) {
+            return minIntervalMs;
+        }
+        long interval = Math.max(minIntervalMs, Math.round(avgServiceMs / maxCpuShare));
+        if (avgLatencyMs > maxLatencyMs) {
+            interval *= 2;
+        }
+        return interval;
+    }
+
+    public double getTargetRateHz() {
+        return 1000.0 / targetIntervalMs();
+    }
+
+    public double getAverageLatencyMs() {
+        return avgLatencyMs;
+    }
+
+    public double getAverageServiceMs() {
+        return avgServiceMs;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getDetectedFrames() {
+        return detectedFrames;
+    }
+
+    public int getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    public int getStaleResults() {
+        return staleResults;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("latency %.1f ms, service %.1f ms, target %.1f Hz, in flight %d, "
+                        + "detected %d, skipped %d, stale %d",
+                avgLatencyMs, avgServiceMs, getTargetRateHz(), inFlight,
+                detectedFrames, skippedFrames, staleResults);
+    }
+}
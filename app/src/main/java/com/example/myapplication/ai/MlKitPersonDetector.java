@@ -0,0 +1,128 @@
+package com.example.myapplication.ai;
+
+import android.graphics.Rect;
+import android.util.Log;
+
+import com.example.myapplication.decision.Detection;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.objects.DetectedObject;
+import com.google.mlkit.vision.objects.ObjectDetection;
+import com.google.mlkit.vision.objects.ObjectDetector;
+import com.google.mlkit.vision.objects.defaults.ObjectDetectorOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * ML Kit's generic object detector. It has no person class, so people are picked out by
+ * label text, or failing that by an upright person-like box shape.
+ * <p>
+ * Overlapping detections are safe: ML Kit queues {@code process()} calls and runs them
+ * one after another on its own thread.
+ */
+public class MlKitPersonDetector implements PersonDetector {
+
+    private static final String TAG = "MlKitPersonDetector";
+
+    private final ObjectDetector detector;
+    private int runCount = 0;
+
+    public MlKitPersonDetector() {
+        ObjectDetectorOptions options = new ObjectDetectorOptions.Builder()
+                .setDetectorMode(ObjectDetectorOptions.STREAM_MODE)
+                .enableMultipleObjects()
+                .enableClassification()
+                .build();
+
+        detector = ObjectDetection.getClient(options);
+    }
+
+    @Override
+    public String getName() {
+        return PersonDetectors.ENGINE_MLKIT;
+    }
+
+    @Override
+    public boolean acceptsMediaImage() {
+        return true;
+    }
+
+    @Override
+    public void detect(DetectorFrame frame, Executor executor, Listener listener) {
+        int run = ++runCount;
+        InputImage input = frame.mediaImage != null
+                ? InputImage.fromMediaImage(frame.mediaImage, frame.rotationDegrees)
+                : InputImage.fromByteArray(frame.nv21, frame.width, frame.height,
+                        frame.rotationDegrees, InputImage.IMAGE_FORMAT_NV21);
+
+        detector.process(input)
+                .addOnSuccessListener(executor, objects -> {
+                    List<Detection> people = new ArrayList<>(objects.size());
+                    for (DetectedObject obj : objects) {
+                        if (isPerson(obj, frame.frameWidth, frame.frameHeight, run)) {
+                            people.add(toDetection(obj, frame.offsetX, frame.offsetY));
+                        }
+                    }
+                    listener.onDetections(people);
+                })
+                .addOnFailureListener(executor, listener::onFailure);
+    }
+
+    @Override
+    public void close() {
+        detector.close();
+    }
+
+    // Box shifted by the crop offset into full-frame upright coordinates
+    private static Detection toDetection(DetectedObject obj, int offsetX, int offsetY) {
+        Rect box = obj.getBoundingBox();
+        Integer trackingId = obj.getTrackingId();
+        // Shape-matched objects carry no label
+        float score = obj.getLabels().isEmpty() ? 1f : obj.getLabels().get(0).getConfidence();
+        return new Detection(box.left + offsetX, box.top + offsetY, box.right + offsetX, box.bottom + offsetY,
+                trackingId != null ? trackingId : Detection.NO_TRACKING_ID, score);
+    }
+
+    // run only paces the debug logging; the listener may be on another thread than detect()
+    private static boolean isPerson(DetectedObject obj, int imageWidth, int imageHeight, int run) {
+        if (obj.getLabels() != null && !obj.getLabels().isEmpty()) {
+            for (DetectedObject.Label label : obj.getLabels()) {
+                String labelText = label.getText().toLowerCase();
+
+                if (labelText.contains("person") ||
+                        labelText.contains("human") ||
+                        labelText.contains("people") ||
+                        labelText.contains("face") ||
+                        labelText.contains("man") ||
+                        labelText.contains("woman") ||
+                        labelText.contains("child")) {
+
+                    if (run % 30 == 0) {
+                        Log.d(TAG, "Person: " + label.getText() +
+                                " (" + String.format("%.2f", label.getConfidence()) + ")");
+                    }
+                    return true;
+                }
+            }
+        }
+
+        int width = obj.getBoundingBox().width();
+        int height = obj.getBoundingBox().height();
+        float aspectRatio = (float) height / width;
+
+        if (aspectRatio >= 1.3 && aspectRatio <= 3.5) {
+            int area = width * height;
+            int minArea = (imageWidth * imageHeight) / 100;
+
+            if (area > minArea) {
+                if (run % 60 == 0) {
+                    Log.d(TAG, "Person-like shape: " + String.format("%.2f", aspectRatio));
+                }
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.myapplication.ai;
+
+import com.example.myapplication.decision.Detection;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A detection engine that finds people in a camera frame. Implementations differ in
+ * model and runtime; callers only see {@link Detection}s in full-frame upright pixels.
+ */
+public interface PersonDetector {
+
+    interface Listener {
+        void onDetections(List<Detection> detections);
+
+        void onFailure(Exception e);
+    }
+
+    // Short engine name for logs and reports
+    String getName();
+
+    // False if the engine needs NV21 bytes; the caller then copies the frame first
+    boolean acceptsMediaImage();
+
+    /**
+     * Starts detection on {@code frame}. Exactly one listener method is called, on
+     * {@code executor}. Called from one thread, but again before earlier detections have
+     * finished (up to {@link AIConfig#MAX_IN_FLIGHT}); an implementation must accept that,
+     * queueing the work internally if its runtime cannot run detections in parallel.
+     * Results may arrive in any order.
+     */
+    void detect(DetectorFrame frame, Executor executor, Listener listener);
+
+    void close();
+}
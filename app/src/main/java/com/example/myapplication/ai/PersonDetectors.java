@@ -0,0 +1,58 @@
+package com.example.myapplication.ai;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Creates {@link PersonDetector}s by engine name, so the engine can be picked at runtime.
+ */
+public final class PersonDetectors {
+
+    private static final String TAG = "PersonDetectors";
+
+    public static final String ENGINE_MLKIT = "mlkit";
+    public static final String ENGINE_TFLITE = "tflite";
+
+    private PersonDetectors() {}
+
+    /**
+     * @param engine one of the ENGINE_* names, case-insensitive; null or unknown means
+     *               {@link AIConfig#DEFAULT_DETECTOR_ENGINE}
+     * @return the requested engine, or ML Kit if it could not be loaded
+     */
+    public static PersonDetector create(Context context, String engine) {
+        if (engine == null || !(ENGINE_MLKIT.equalsIgnoreCase(engine) || ENGINE_TFLITE.equalsIgnoreCase(engine))) {
+            engine = AIConfig.DEFAULT_DETECTOR_ENGINE;
+        }
+
+        if (ENGINE_TFLITE.equalsIgnoreCase(engine)) {
+            if (!isAvailable(context, engine)) {
+                Log.w(TAG, "⚠️ " + AIConfig.TFLITE_MODEL_ASSET + " is not in the app's assets, using ML Kit");
+                return new MlKitPersonDetector();
+            }
+            try {
+                return new TfLitePersonDetector(context, AIConfig.TFLITE_MODEL_ASSET,
+                        AIConfig.TFLITE_THREADS, AIConfig.TFLITE_MIN_SCORE);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ TFLite detector unavailable, using ML Kit: " + e.getMessage());
+            }
+        }
+        return new MlKitPersonDetector();
+    }
+
+    // False for TFLite when its model was not added to the assets; ML Kit is always there
+    public static boolean isAvailable(Context context, String engine) {
+        if (!ENGINE_TFLITE.equalsIgnoreCase(engine)) {
+            return true;
+        }
+        try {
+            String[] assets = context.getAssets().list("");
+            return assets != null && Arrays.asList(assets).contains(AIConfig.TFLITE_MODEL_ASSET);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
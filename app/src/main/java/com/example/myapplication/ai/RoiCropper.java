@@ -0,0 +1,147 @@
+package com.example.myapplication.ai;
+
+import android.graphics.Rect;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Copies a region of a YUV_420_888 camera frame into a pooled NV21 buffer, so the
+ * detector only sees the pixels around the tracked target.
+ * <p>
+ * Two coordinate systems are involved: the sensor frame the planes are stored in, and
+ * the upright frame (rotated by {@code rotationDegrees} clockwise) that detections are
+ * reported in. {@link #toSensor} and {@link #toUpright} convert rectangles between them.
+ * <p>
+ * Each crop holds its buffer until {@link #release} hands it back, so several crops can
+ * be in flight at once. Not thread-safe.
+ */
+public class RoiCropper {
+
+    private final ArrayDeque<byte[]> free = new ArrayDeque<>();
+    private final Rect cropped = new Rect();
+
+    /**
+     * Crops {@code sensorRoi} (aligned to even coordinates first, as chroma is subsampled)
+     * out of {@code image}.
+     *
+     * @return the NV21 bytes, to be released after use; the area actually copied is
+     * {@link #getCroppedRect()}
+     */
+    public byte[] crop(ImageProxy image, Rect sensorRoi) {
+        int left = Math.max(0, sensorRoi.left) & ~1;
+        int top = Math.max(0, sensorRoi.top) & ~1;
+        int right = Math.min(image.getWidth(), sensorRoi.right) & ~1;
+        int bottom = Math.min(image.getHeight(), sensorRoi.bottom) & ~1;
+        cropped.set(left, top, right, bottom);
+
+        int width = right - left;
+        int height = bottom - top;
+        int size = width * height + width * height / 2;
+        byte[] nv21 = free.poll();
+        if (nv21 == null || nv21.length < size) {
+            nv21 = new byte[size];
+        }
+
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+
+        // Luma: one bulk copy per row
+        ByteBuffer y = planes[0].getBuffer();
+        int yRowStride = planes[0].getRowStride();
+        int out = 0;
+        for (int row = top; row < bottom; row++) {
+            y.position(row * yRowStride + left);
+            y.get(nv21, out, width);
+            out += width;
+        }
+
+        // Chroma: NV21 interleaves V then U at half resolution
+        ByteBuffer u = planes[1].getBuffer();
+        ByteBuffer v = planes[2].getBuffer();
+        int uvRowStride = planes[1].getRowStride();
+        int uvPixelStride = planes[1].getPixelStride();
+        for (int row = top / 2; row < bottom / 2; row++) {
+            int index = row * uvRowStride + (left / 2) * uvPixelStride;
+            for (int col = 0; col < width / 2; col++) {
+                nv21[out++] = v.get(index);
+                nv21[out++] = u.get(index);
+                index += uvPixelStride;
+            }
+        }
+        return nv21;
+    }
+
+    /**
+     * Same as {@link #crop(ImageProxy, Rect)} for a frame that already is NV21, such as
+     * Agora's captured frames: a row copy per luma and chroma row.
+     */
+    public byte[] crop(byte[] source, int sourceWidth, int sourceHeight, Rect sensorRoi) {
+        int left = Math.max(0, sensorRoi.left) & ~1;
+        int top = Math.max(0, sensorRoi.top) & ~1;
+        int right = Math.min(sourceWidth, sensorRoi.right) & ~1;
+        int bottom = Math.min(sourceHeight, sensorRoi.bottom) & ~1;
+        cropped.set(left, top, right, bottom);
+
+        int width = right - left;
+        int height = bottom - top;
+        int size = width * height + width * height / 2;
+        byte[] nv21 = free.poll();
+        if (nv21 == null || nv21.length < size) {
+            nv21 = new byte[size];
+        }
+
+        int out = 0;
+        for (int row = top; row < bottom; row++) {
+            System.arraycopy(source, row * sourceWidth + left, nv21, out, width);
+            out += width;
+        }
+        // Interleaved VU rows are as wide as a luma row, so the same column offset applies
+        int chroma = sourceWidth * sourceHeight;
+        for (int row = top / 2; row < bottom / 2; row++) {
+            System.arraycopy(source, chroma + row * sourceWidth + left, nv21, out, width);
+            out += width;
+        }
+        return nv21;
+    }
+
+    // Returns a crop's buffer to the pool
+    public void release(byte[] nv21) {
+        free.push(nv21);
+    }
+
+    public Rect getCroppedRect() {
+        return cropped;
+    }
+
+    // Upright rectangle to the sensor frame of a sensorWidth x sensorHeight image
+    public static Rect toSensor(Rect upright, int rotationDegrees, int sensorWidth, int sensorHeight) {
+        switch (rotationDegrees) {
+            case 90:
+                return new Rect(upright.top, sensorHeight - upright.right, upright.bottom, sensorHeight - upright.left);
+            case 180:
+                return new Rect(sensorWidth - upright.right, sensorHeight - upright.bottom,
+                        sensorWidth - upright.left, sensorHeight - upright.top);
+            case 270:
+                return new Rect(sensorWidth - upright.bottom, upright.left, sensorWidth - upright.top, upright.right);
+            default:
+                return new Rect(upright);
+        }
+    }
+
+    // Sensor rectangle to the upright frame
+    public static Rect toUpright(Rect sensor, int rotationDegrees, int sensorWidth, int sensorHeight) {
+        switch (rotationDegrees) {
+            case 90:
+                return new Rect(sensorHeight - sensor.bottom, sensor.left, sensorHeight - sensor.top, sensor.right);
+            case 180:
+                return new Rect(sensorWidth - sensor.right, sensorHeight - sensor.bottom,
+                        sensorWidth - sensor.left, sensorHeight - sensor.top);
+            case 270:
+                return new Rect(sensor.top, sensorWidth - sensor.right, sensor.bottom, sensorWidth - sensor.left);
+            default:
+                return new Rect(sensor);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.myapplication.ai;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.myapplication.decision.Detection;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A person-only, uint8-quantized SSD-style TFLite model on the CPU, through the
+ * multi-threaded XNNPACK delegate.
+ * <p>
+ * The model takes one {@code [1, h, w, 3]} uint8 RGB input and ends in the standard
+ * detection post-processing op, whose outputs are boxes {@code [1, n, 4]} (normalised
+ * ymin, xmin, ymax, xmax), classes {@code [1, n]}, scores {@code [1, n]} and a count
+ * {@code [1]}. NV21 is converted, rotated and scaled into the input in one pass.
+ * <p>
+ * Inference runs on an own thread so the analysis thread stays free for the control tick.
+ * That one thread is also what makes overlapping detections safe: the interpreter and its
+ * input and output buffers are single-use, so a detection started while another runs waits
+ * in that thread's queue.
+ */
+public class TfLitePersonDetector implements PersonDetector {
+
+    private static final String TAG = "TfLitePersonDetector";
+
+    private final Interpreter interpreter;
+    private final ExecutorService inferenceExecutor = Executors.newSingleThreadExecutor();
+    private final float minScore;
+
+    private final int inputWidth;
+    private final int inputHeight;
+    private final ByteBuffer input;
+
+    private final float[][][] boxes;
+    private final float[][] classes;
+    private final float[][] scores;
+    private final float[] count = new float[1];
+    private final Map<Integer, Object> outputs = new HashMap<>();
+
+    /**
+     * @throws IOException if the model asset is missing or is not a uint8 detection model
+     */
+    public TfLitePersonDetector(Context context, String modelAsset, int numThreads, float minScore)
+            throws IOException {
+        Interpreter.Options options = new Interpreter.Options()
+                .setNumThreads(numThreads)
+                .setUseXNNPACK(true);
+        this.interpreter = new Interpreter(loadModel(context, modelAsset), options);
+        this.minScore = minScore;
+
+        Tensor inputTensor = interpreter.getInputTensor(0);
+        int[] shape = inputTensor.shape();
+        if (inputTensor.dataType() != DataType.UINT8 || shape.length != 4 || shape[3] != 3
+                || interpreter.getOutputTensorCount() < 4) {
+            interpreter.close();
+            throw new IOException("Unsupported person model " + modelAsset);
+        }
+        inputHeight = shape[1];
+        inputWidth = shape[2];
+        input = ByteBuffer.allocateDirect(inputWidth * inputHeight * 3).order(ByteOrder.nativeOrder());
+
+        int maxDetections = interpreter.getOutputTensor(0).shape()[1];
+        boxes = new float[1][maxDetections][4];
+        classes = new float[1][maxDetections];
+        scores = new float[1][maxDetections];
+        outputs.put(0, boxes);
+        outputs.put(1, classes);
+        outputs.put(2, scores);
+        outputs.put(3, new float[][]{count});
+
+        Log.d(TAG, "Loaded " + modelAsset + " (" + inputWidth + "x" + inputHeight
+                + ", " + numThreads + " threads)");
+    }
+
+    private static MappedByteBuffer loadModel(Context context, String asset) throws IOException {
+        // Needs the asset stored uncompressed (noCompress "tflite" in the build)
+        try (AssetFileDescriptor fd = context.getAssets().openFd(asset);
+             FileInputStream in = new FileInputStream(fd.getFileDescriptor())) {
+            return in.getChannel().map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getDeclaredLength());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return PersonDetectors.ENGINE_TFLITE;
+    }
+
+    @Override
+    public boolean acceptsMediaImage() {
+        return false;
+    }
+
+    @Override
+    public void detect(DetectorFrame frame, Executor executor, Listener listener) {
+        inferenceExecutor.execute(() -> {
+            List<Detection> people;
+            try {
+                people = run(frame);
+            } catch (Exception e) {
+                executor.execute(() -> listener.onFailure(e));
+                return;
+            }
+            executor.execute(() -> listener.onDetections(people));
+        });
+    }
+
+    private List<Detection> run(DetectorFrame frame) {
+        long start = SystemClock.uptimeMillis();
+        input.rewind();
+        sampleNv21(frame.nv21, frame.width, frame.height, frame.rotationDegrees, input, inputWidth, inputHeight);
+        input.rewind();
+
+        interpreter.runForMultipleInputsOutputs(new Object[]{input}, outputs);
+
+        int n = Math.min((int) count[0], scores[0].length);
+        float scaleX = frame.uprightWidth();
+        float scaleY = frame.uprightHeight();
+        List<Detection> people = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            // Person-only model: every class is a person, so only the score matters
+            if (scores[0][i] < minScore) {
+                continue;
+            }
+            float[] box = boxes[0][i];
+            people.add(new Detection(
+                    box[1] * scaleX + frame.offsetX, box[0] * scaleY + frame.offsetY,
+                    box[3] * scaleX + frame.offsetX, box[2] * scaleY + frame.offsetY,
+                    Detection.NO_TRACKING_ID, scores[0][i]));
+        }
+
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Inference " + (SystemClock.uptimeMillis() - start) + " ms, " + people.size() + " people");
+        }
+        return people;
+    }
+
+    /**
+     * Writes the NV21 image, rotated upright and scaled to {@code outWidth x outHeight}
+     * (nearest neighbour), as packed RGB bytes into {@code out}.
+     */
+    static void sampleNv21(byte[] nv21, int width, int height, int rotationDegrees,
+                           ByteBuffer out, int outWidth, int outHeight) {
+        boolean transposed = rotationDegrees % 180 != 0;
+        int uprightWidth = transposed ? height : width;
+        int uprightHeight = transposed ? width : height;
+        int chromaStart = width * height;
+
+        for (int oy = 0; oy < outHeight; oy++) {
+            int v = oy * uprightHeight / outHeight;
+            for (int ox = 0; ox < outWidth; ox++) {
+                int u = ox * uprightWidth / outWidth;
+
+                // Upright (u, v) back to the sensor pixel it came from
+                int sx;
+                int sy;
+                switch (rotationDegrees) {
+                    case 90:
+                        sx = v;
+                        sy = height - 1 - u;
+                        break;
+                    case 180:
+                        sx = width - 1 - u;
+                        sy = height - 1 - v;
+                        break;
+                    case 270:
+                        sx = width - 1 - v;
+                        sy = u;
+                        break;
+                    default:
+                        sx = u;
+                        sy = v;
+                        break;
+                }
+
+                int y = (nv21[sy * width + sx] & 0xFF) - 16;
+                int uv = chromaStart + (sy >> 1) * width + (sx & ~1);
+                int cr = (nv21[uv] & 0xFF) - 128;
+                int cb = (nv21[uv + 1] & 0xFF) - 128;
+
+                // BT.601 limited range, fixed point (x1024)
+                int luma = 1192 * Math.max(0, y);
+                out.put(clampByte((luma + 1634 * cr) >> 10));
+                out.put(clampByte((luma - 833 * cr - 400 * cb) >> 10));
+                out.put(clampByte((luma + 2066 * cb) >> 10));
+            }
+        }
+    }
+
+    private static byte clampByte(int value) {
+        return (byte) (value < 0 ? 0 : Math.min(value, 255));
+    }
+
+    @Override
+    public void close() {
+        // Queued after any running inference, so the interpreter is not closed under it
+        inferenceExecutor.execute(interpreter::close);
+        inferenceExecutor.shutdown();
+    }
+}
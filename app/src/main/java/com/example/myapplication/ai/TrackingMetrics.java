@@ -0,0 +1,41 @@
+package com.example.myapplication.ai;
+
+/**
+ * Per-stage latency of the AI tracking pipeline, kept by {@link AIHelper}.
+ * Stages are recorded from the analysis, detector and MQTT threads; all histograms are
+ * safe to read from any thread.
+ */
+public class TrackingMetrics {
+
+    // Sensor exposure to the frame reaching the analyzer (camera pipeline and queueing)
+    public final LatencyHistogram capture = new LatencyHistogram();
+
+    // Crop copy or wrapping the camera buffer for the detector
+    public final LatencyHistogram conversion = new LatencyHistogram();
+
+    // Detector start to result on the analysis thread
+    public final LatencyHistogram inference = new LatencyHistogram();
+
+    // Tracker update and steering measurement for one result
+    public final LatencyHistogram decision = new LatencyHistogram();
+
+    // Handing a motion command to the MQTT client (not the network round trip)
+    public final LatencyHistogram publish = new LatencyHistogram();
+
+    public void reset() {
+        capture.reset();
+        conversion.reset();
+        inference.reset();
+        decision.reset();
+        publish.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "capture    " + capture
+                + "\nconvert    " + conversion
+                + "\ninference  " + inference
+                + "\ndecision   " + decision
+                + "\npublish    " + publish;
+    }
+}
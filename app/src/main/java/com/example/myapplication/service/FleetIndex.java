@@ -0,0 +1,104 @@
+package com.example.myapplication.service;
+
+import com.example.myapplication.DTO.Robot;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * Robots discovered so far, kept sorted by robot ID in parallel arrays.
+ * Lookup by ID is a binary search and the list view by position is O(1), so an
+ * adapter can page over thousands of robots without copying them. Every put also
+ * updates the {@link FleetQuery} secondary indexes, so searches never rebuild.
+ * <p>
+ * Not thread-safe: owned by the main thread.
+ */
+public class FleetIndex extends AbstractList<Robot> {
+
+    private int[] ids = new int[64];
+    private Robot[] robots = new Robot[64];
+    private int size = 0;
+    private final FleetQuery query = new FleetQuery(this);
+
+    public FleetQuery query() {
+        return query;
+    }
+
+    @Override
+    public Robot get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+        }
+        return robots[position];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Position of a robot, or a negative value if it has not been seen yet
+    public int indexOf(int robotId) {
+        return Arrays.binarySearch(ids, 0, size, robotId);
+    }
+
+    public Robot find(int robotId) {
+        int position = indexOf(robotId);
+        return position >= 0 ? robots[position] : null;
+    }
+
+    /**
+     * Adds a robot, or replaces the entry with the same ID.
+     *
+     * @return the robot's position
+     */
+    public int put(Robot robot) {
+        int position = indexOf(robot.getId());
+        if (position >= 0) {
+            query.update(robots[position], robot);
+            robots[position] = robot;
+            return position;
+        }
+
+        position = -position - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            robots = Arrays.copyOf(robots, size * 2);
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        System.arraycopy(robots, position, robots, position + 1, size - position);
+        ids[position] = robot.getId();
+        robots[position] = robot;
+        size++;
+        query.update(null, robot);
+        modCount++;
+        return position;
+    }
+
+    /**
+     * @return the removed robot, or null if it was not in the index
+     */
+    public Robot remove(int robotId) {
+        int position = indexOf(robotId);
+        if (position < 0) {
+            return null;
+        }
+
+        Robot removed = robots[position];
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        System.arraycopy(robots, position + 1, robots, position, size - position - 1);
+        size--;
+        robots[size] = null;
+        query.update(removed, null);
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(robots, 0, size, null);
+        size = 0;
+        query.clear();
+        modCount++;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.myapplication.service;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.http.GET;
+import retrofit2.http.Header;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
+
+/**
+ * Fleet metadata endpoint. A response body looks like
+ * <pre>
+ * {"version": "v42", "full": false,
+ *  "robots": [{"id": 7, "name": "Dock runner", "zone": "B", "capabilities": ["camera", "ai"]}],
+ *  "removed": [3]}
+ * </pre>
+ * With {@code since} the server may answer with only the robots changed after that version
+ * ({@code "full": false}); a matching {@code If-None-Match} gets 304 and no body.
+ */
+interface FleetMetadataApi {
+
+    // Null arguments are left out of the request
+    @Streaming
+    @GET("robots")
+    Call<ResponseBody> robots(@Header("If-None-Match") String etag, @Query("since") String since);
+}
@@ -0,0 +1,265 @@
+package com.example.myapplication.service;
+
+import com.example.myapplication.DTO.Robot;
+import com.example.myapplication.DTO.RobotStatus;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+/**
+ * Keeps a local copy of fleet metadata (names, zones, capabilities) in sync with the
+ * {@link FleetMetadataApi} endpoint.
+ * <p>
+ * Each sync is a conditional request: the last ETag goes out as {@code If-None-Match}
+ * and the last version as {@code since}, so an unchanged fleet costs a 304 and a changed
+ * one costs a delta. Responses are parsed as a stream, one robot at a time, and the
+ * merged result is written to a compact binary cache so the next launch starts from it.
+ * <p>
+ * Blocking; call from a background thread. Plain Java, so it runs in local unit tests.
+ */
+public class FleetMetadataClient {
+
+    /**
+     * Outcome of one sync: robots added or changed, and IDs that left the fleet.
+     * Both are empty when the server answered 304.
+     */
+    public static final class SyncResult {
+        public final boolean notModified;
+        public final List<Robot> updated;
+        public final List<Integer> removed;
+
+        SyncResult(boolean notModified, List<Robot> updated, List<Integer> removed) {
+            this.notModified = notModified;
+            this.updated = updated;
+            this.removed = removed;
+        }
+    }
+
+    private static final int CACHE_MAGIC = 0x464D4431; // "FMD1"
+    private static final int CACHE_VERSION = 1;
+    private static final int MAX_CACHED_ROBOTS = 100_000;
+
+    private final FleetMetadataApi api;
+    private final File cacheFile;
+    private final TypeAdapter<Robot> robotAdapter = new Gson().getAdapter(Robot.class);
+
+    private final Map<Integer, Robot> robots = new TreeMap<>();
+    private String etag;
+    private String version;
+
+    public FleetMetadataClient(String baseUrl, File cacheFile) {
+        this.api = new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .build()
+                .create(FleetMetadataApi.class);
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Loads the disk cache, if any. A missing or unreadable cache just means the next
+     * sync is a full download.
+     *
+     * @return the cached robots
+     */
+    public synchronized Collection<Robot> loadCache() throws IOException {
+        robots.clear();
+        etag = null;
+        version = null;
+        if (!cacheFile.exists()) {
+            return Collections.emptyList();
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != CACHE_MAGIC || in.readUnsignedByte() != CACHE_VERSION) {
+                throw new IOException("Unknown metadata cache format");
+            }
+            String cachedEtag = readNullableUTF(in);
+            String cachedVersion = readNullableUTF(in);
+            int count = in.readInt();
+            if (count < 0 || count > MAX_CACHED_ROBOTS) {
+                throw new IOException("Bad metadata cache size " + count);
+            }
+            for (int i = 0; i < count; i++) {
+                Robot robot = readRobot(in);
+                robots.put(robot.getId(), robot);
+            }
+            etag = cachedEtag;
+            version = cachedVersion;
+        } catch (IOException e) {
+            robots.clear();
+            throw e;
+        }
+        return new ArrayList<>(robots.values());
+    }
+
+    public synchronized SyncResult sync() throws IOException {
+        Response<ResponseBody> response = api.robots(etag, version).execute();
+        if (!response.isSuccessful() || response.body() == null) {
+            if (response.errorBody() != null) {
+                response.errorBody().close();
+            }
+            if (response.code() == 304) {
+                return new SyncResult(true, Collections.emptyList(), Collections.emptyList());
+            }
+            throw new IOException("Metadata sync failed: HTTP " + response.code());
+        }
+
+        List<Robot> updated = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        boolean full = false;
+        String newVersion = null;
+
+        try (ResponseBody body = response.body();
+             JsonReader reader = new JsonReader(body.charStream())) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "version":
+                        newVersion = reader.nextString();
+                        break;
+                    case "full":
+                        full = reader.nextBoolean();
+                        break;
+                    case "robots":
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            updated.add(normalize(robotAdapter.read(reader)));
+                        }
+                        reader.endArray();
+                        break;
+                    case "removed":
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            removed.add(reader.nextInt());
+                        }
+                        reader.endArray();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        } catch (JsonParseException | IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed metadata response", e);
+        }
+
+        if (full) {
+            // Anything the full listing does not mention has left the fleet
+            Set<Integer> listed = new HashSet<>();
+            for (Robot robot : updated) {
+                listed.add(robot.getId());
+            }
+            for (Integer id : robots.keySet()) {
+                if (!listed.contains(id)) {
+                    removed.add(id);
+                }
+            }
+            robots.clear();
+        }
+        for (Integer id : removed) {
+            robots.remove(id);
+        }
+        for (Robot robot : updated) {
+            robots.put(robot.getId(), robot);
+        }
+
+        etag = response.headers().get("ETag");
+        version = newVersion;
+        writeCache();
+        return new SyncResult(false, updated, removed);
+    }
+
+    // Fields the server leaves out are not filled in by Gson; give them safe defaults
+    private static Robot normalize(Robot robot) {
+        if (robot.getName() == null) {
+            robot.setName("Robot " + robot.getId());
+        }
+        if (robot.getCapabilities() == null) {
+            robot.setCapabilities(Collections.emptyList());
+        }
+        return robot;
+    }
+
+    private void writeCache() throws IOException {
+        File tmp = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeByte(CACHE_VERSION);
+            writeNullableUTF(out, etag);
+            writeNullableUTF(out, version);
+            out.writeInt(robots.size());
+            for (Robot robot : robots.values()) {
+                writeRobot(out, robot);
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+
+        if (!tmp.renameTo(cacheFile)) {
+            tmp.delete();
+            throw new IOException("Could not replace metadata cache " + cacheFile);
+        }
+    }
+
+    private static void writeRobot(DataOutputStream out, Robot robot) throws IOException {
+        out.writeInt(robot.getId());
+        writeNullableUTF(out, robot.getName());
+        writeNullableUTF(out, robot.getZone());
+        List<String> capabilities = robot.getCapabilities();
+        out.writeShort(capabilities.size());
+        for (String capability : capabilities) {
+            out.writeUTF(capability);
+        }
+    }
+
+    private static Robot readRobot(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        // Status is live MQTT state, never cached
+        Robot robot = new Robot(id, readNullableUTF(in), RobotStatus.UNKNOWN);
+        robot.setZone(readNullableUTF(in));
+        int capabilityCount = in.readUnsignedShort();
+        List<String> capabilities = new ArrayList<>(capabilityCount);
+        for (int i = 0; i < capabilityCount; i++) {
+            capabilities.add(in.readUTF());
+        }
+        robot.setCapabilities(capabilities);
+        return robot;
+    }
+
+    private static void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.myapplication.service;
+
+import com.example.myapplication.BuildConfig;
+
+public class FleetMetadataConfig {
+    // Set with the fleetMetadataUrl Gradle property; must end with '/'. Empty: no metadata sync
+    public static final String BASE_URL = BuildConfig.FLEET_METADATA_URL;
+
+    // A fleet change is picked up on the next picker visit, but not more often than this
+    public static final long MIN_SYNC_INTERVAL_MS = 60_000;
+
+    private FleetMetadataConfig() {}
+
+    public static boolean isConfigured() {
+        return !BASE_URL.isEmpty();
+    }
+}
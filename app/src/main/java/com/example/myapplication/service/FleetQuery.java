@@ -0,0 +1,212 @@
+package com.example.myapplication.service;
+
+import com.example.myapplication.DTO.Robot;
+import com.example.myapplication.DTO.RobotStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Secondary indexes over a {@link FleetIndex}: robots by lower-cased name, and robots by
+ * last-seen time bucketed per status. Zone is a filter on top of either. {@link FleetIndex#put} keeps them current one robot
+ * at a time, so a query never rebuilds anything: a name prefix is a range of the name
+ * index, and "online, most recent first" is a walk of one bucket.
+ * <p>
+ * Not thread-safe: owned by the main thread, like the index it belongs to.
+ */
+public class FleetQuery {
+
+    public static final int SORT_ID = 0;
+    public static final int SORT_NAME = 1;
+    public static final int SORT_LAST_SEEN = 2;
+
+    public static final int ALL_STATUSES = (1 << RobotStatus.COUNT) - 1;
+
+    public static int maskOf(int status) {
+        return 1 << status;
+    }
+
+    // One indexed robot; the lower-cased name is computed once per update, not per comparison
+    private static final class Entry {
+        final Robot robot;
+        final String nameKey;
+
+        Entry(Robot robot) {
+            this.robot = robot;
+            this.nameKey = nameKey(robot.getName());
+        }
+
+        // Search bound: sorts before every robot whose name key is >= nameKey
+        Entry(String nameKey) {
+            this.robot = null;
+            this.nameKey = nameKey;
+        }
+
+        int id() {
+            return robot != null ? robot.getId() : Integer.MIN_VALUE;
+        }
+    }
+
+    private static final Comparator<Entry> BY_NAME = (a, b) -> {
+        int c = a.nameKey.compareTo(b.nameKey);
+        return c != 0 ? c : Integer.compare(a.id(), b.id());
+    };
+
+    // Most recently seen first
+    private static final Comparator<Entry> BY_LAST_SEEN = (a, b) -> {
+        int c = Long.compare(b.robot.getLastSeenMs(), a.robot.getLastSeenMs());
+        return c != 0 ? c : Integer.compare(a.id(), b.id());
+    };
+
+    private final FleetIndex fleet;
+    private final TreeSet<Entry> byName = new TreeSet<>(BY_NAME);
+    private final List<TreeSet<Entry>> byStatus = new ArrayList<>(RobotStatus.COUNT);
+
+    FleetQuery(FleetIndex fleet) {
+        this.fleet = fleet;
+        for (int i = 0; i < RobotStatus.COUNT; i++) {
+            byStatus.add(new TreeSet<>(BY_LAST_SEEN));
+        }
+    }
+
+    public List<Robot> query(String namePrefix, int statusMask, int sort) {
+        return query(namePrefix, statusMask, null, sort);
+    }
+
+    /**
+     * Robots whose name starts with {@code namePrefix} (case-insensitive, empty matches all),
+     * whose status is in {@code statusMask} and, unless {@code zone} is null, that are in
+     * {@code zone}; in the given sort order.
+     */
+    public List<Robot> query(String namePrefix, int statusMask, String zone, int sort) {
+        String prefix = nameKey(namePrefix);
+        boolean allStatuses = (statusMask & ALL_STATUSES) == ALL_STATUSES;
+        List<Robot> out = new ArrayList<>();
+
+        if (prefix.isEmpty() && allStatuses && zone == null && sort == SORT_ID) {
+            out.addAll(fleet);
+            return out;
+        }
+
+        if (!prefix.isEmpty() || sort == SORT_NAME) {
+            // The name range is usually the smallest candidate set once the user has typed something
+            for (Entry e : nameRange(prefix)) {
+                if (matches(e.robot, statusMask, zone)) {
+                    out.add(e.robot);
+                }
+            }
+            if (sort == SORT_LAST_SEEN) {
+                out.sort(Comparator.comparingLong(Robot::getLastSeenMs).reversed());
+            } else if (sort == SORT_ID) {
+                out.sort(Comparator.comparingInt(Robot::getId));
+            }
+            return out;
+        }
+
+        if (sort == SORT_LAST_SEEN) {
+            // Merge the selected buckets, each already ordered by last-seen, without re-sorting
+            List<TreeSet<Entry>> buckets = new ArrayList<>();
+            for (int status = 0; status < RobotStatus.COUNT; status++) {
+                if ((statusMask & maskOf(status)) != 0 && !byStatus.get(status).isEmpty()) {
+                    buckets.add(byStatus.get(status));
+                }
+            }
+            merge(buckets, zone, out);
+            return out;
+        }
+
+        // Status and zone filter in ID order
+        for (Robot robot : fleet) {
+            if (matches(robot, statusMask, zone)) {
+                out.add(robot);
+            }
+        }
+        return out;
+    }
+
+    public int countByStatus(int status) {
+        return byStatus.get(status).size();
+    }
+
+    // Called by FleetIndex for every insert, replacement and removal (current == null)
+    void update(Robot previous, Robot current) {
+        if (previous != null) {
+            Entry old = new Entry(previous);
+            byName.remove(old);
+            byStatus.get(bucketOf(previous)).remove(old);
+        }
+        if (current != null) {
+            Entry entry = new Entry(current);
+            byName.add(entry);
+            byStatus.get(bucketOf(current)).add(entry);
+        }
+    }
+
+    void clear() {
+        byName.clear();
+        for (TreeSet<Entry> bucket : byStatus) {
+            bucket.clear();
+        }
+    }
+
+    private Collection<Entry> nameRange(String prefix) {
+        if (prefix.isEmpty()) {
+            return byName;
+        }
+        // Every key starting with prefix sorts between prefix and prefix + U+FFFF
+        return byName.subSet(new Entry(prefix), true, new Entry(prefix + Character.MAX_VALUE), false);
+    }
+
+    /**
+     * Appends the robots of {@code buckets} in {@code zone} to {@code out}, most recently seen
+     * first. A robot is in one bucket only, so walking the buckets side by side and always
+     * taking the newest head is already the combined order.
+     */
+    private static void merge(List<TreeSet<Entry>> buckets, String zone, List<Robot> out) {
+        int count = buckets.size();
+        List<Iterator<Entry>> iterators = new ArrayList<>(count);
+        Entry[] heads = new Entry[count];
+        for (int i = 0; i < count; i++) {
+            Iterator<Entry> it = buckets.get(i).iterator();
+            iterators.add(it);
+            heads[i] = it.hasNext() ? it.next() : null;
+        }
+
+        while (true) {
+            int newest = -1;
+            for (int i = 0; i < count; i++) {
+                if (heads[i] != null && (newest < 0 || BY_LAST_SEEN.compare(heads[i], heads[newest]) < 0)) {
+                    newest = i;
+                }
+            }
+            if (newest < 0) {
+                return;
+            }
+            Entry e = heads[newest];
+            Iterator<Entry> it = iterators.get(newest);
+            heads[newest] = it.hasNext() ? it.next() : null;
+            if (zone == null || zone.equals(e.robot.getZone())) {
+                out.add(e.robot);
+            }
+        }
+    }
+
+    private static boolean matches(Robot robot, int statusMask, String zone) {
+        return (statusMask & maskOf(bucketOf(robot))) != 0
+                && (zone == null || zone.equals(robot.getZone()));
+    }
+
+    private static int bucketOf(Robot robot) {
+        int status = robot.getStatus();
+        return status >= 0 && status < RobotStatus.COUNT ? status : RobotStatus.UNKNOWN;
+    }
+
+    private static String nameKey(String name) {
+        return name != null ? name.toLowerCase(Locale.ROOT) : "";
+    }
+}
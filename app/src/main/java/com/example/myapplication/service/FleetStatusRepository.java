@@ -0,0 +1,343 @@
+package com.example.myapplication.service;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.myapplication.DTO.Robot;
+import com.example.myapplication.DTO.RobotStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Single owner of fleet state for every robot picker screen.
+ * <p>
+ * The repository keeps one {@link FleetIndex}, fed by wildcard subscriptions to the
+ * robots' presence ({@code status}) and operators' presence ({@code admin}) while at
+ * least one screen observes it. Both are retained births and Last Wills, so the list
+ * reflects the broker's view of who is connected. The last-known fleet is persisted as a compact
+ * binary snapshot in the app's files directory and loaded when the repository is created,
+ * so a picker renders useful content immediately and then reconciles with live (retained)
+ * status messages as they arrive. Names, zones and capabilities come from
+ * {@link FleetMetadataClient}, cached on disk and refreshed conditionally.
+ * <p>
+ * Observers are called on the main thread; observe/stopObserving must be called there too.
+ */
+public final class FleetStatusRepository implements FleetUpdateCoalescer.Listener {
+
+    private static final String TAG = "FleetStatusRepository";
+
+    public interface Observer { void onFleetChanged(List<Robot> robots); }
+
+    private static final String SNAPSHOT_FILE = "fleet_snapshot.bin";
+    private static final String METADATA_CACHE_FILE = "fleet_metadata.bin";
+    private static final int SNAPSHOT_MAGIC = 0x464C5431; // "FLT1"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int MAX_SNAPSHOT_ROBOTS = 100_000;
+
+    // Writes are coalesced so a burst of status changes costs one disk write
+    private static final long SAVE_DELAY_MS = 2_000;
+
+    private static FleetStatusRepository instance;
+
+    private final Context appContext;
+    private final File snapshotFile;
+    // Null when no metadata service is configured; robots are then known from MQTT status alone
+    private final FleetMetadataClient metadata;
+    private final FleetIndex fleet = new FleetIndex();
+    private final FleetUpdateCoalescer updates = new FleetUpdateCoalescer(fleet, this);
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private final Runnable snapshotSave = this::scheduleSave;
+
+    // Distinct zones from synced metadata, sorted; main thread only
+    private List<String> zones = Collections.emptyList();
+
+    // Latest retained presence per robot from each topic, combined by postPresence
+    private final Map<Integer, Integer> robotPresence = new ConcurrentHashMap<>();
+    private final Set<Integer> operated = ConcurrentHashMap.newKeySet();
+
+    private List<Robot> current = Collections.emptyList();
+    private MqttManager mqtt;
+    private long lastMetadataSyncMs = 0;
+
+    public static synchronized FleetStatusRepository get(Context context) {
+        if (instance == null) {
+            instance = new FleetStatusRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private FleetStatusRepository(Context appContext) {
+        this.appContext = appContext;
+        snapshotFile = new File(appContext.getFilesDir(), SNAPSHOT_FILE);
+        ioExecutor.execute(this::loadSnapshot);
+        if (FleetMetadataConfig.isConfigured()) {
+            metadata = new FleetMetadataClient(FleetMetadataConfig.BASE_URL,
+                    new File(appContext.getFilesDir(), METADATA_CACHE_FILE));
+            ioExecutor.execute(this::loadMetadataCache);
+        } else {
+            metadata = null;
+            Log.w(TAG, "⚠️ No fleet metadata URL configured, skipping metadata sync");
+        }
+    }
+
+    /**
+     * Starts delivering fleet changes to {@code observer}, beginning with the current state.
+     * The first observer opens the status subscription and refreshes fleet metadata.
+     */
+    public void observe(Observer observer) {
+        observers.add(observer);
+        observer.onFleetChanged(current);
+
+        if (mqtt == null) {
+            mqtt = SharedMqttManager.acquire(appContext);
+            mqtt.subscribe(MqttChannel.STATUS.topicFilter(), statusListener);
+            mqtt.subscribe(MqttChannel.ADMIN.topicFilter(), adminListener);
+            syncMetadata();
+        }
+    }
+
+    /**
+     * The last observer closes the status subscription; fleet state stays in memory.
+     */
+    public void stopObserving(Observer observer) {
+        observers.remove(observer);
+        if (observers.isEmpty() && mqtt != null) {
+            mqtt.unsubscribe(MqttChannel.STATUS.topicFilter(), statusListener);
+            mqtt.unsubscribe(MqttChannel.ADMIN.topicFilter(), adminListener);
+            SharedMqttManager.release();
+            mqtt = null;
+        }
+    }
+
+    // Main thread only
+    public Robot find(int robotId) {
+        return fleet.find(robotId);
+    }
+
+    /**
+     * Filtered, sorted view of the fleet; see {@link FleetQuery#query}. Main thread only.
+     */
+    public List<Robot> query(String namePrefix, int statusMask, int sort) {
+        return fleet.query().query(namePrefix, statusMask, sort);
+    }
+
+    // Only robots in zone, unless it is null
+    public List<Robot> query(String namePrefix, int statusMask, String zone, int sort) {
+        return fleet.query().query(namePrefix, statusMask, zone, sort);
+    }
+
+    /**
+     * Zones known from fleet metadata, sorted; empty until metadata has been synced or
+     * loaded from cache. Main thread only.
+     */
+    public List<String> zones() {
+        return zones;
+    }
+
+    // Retained messages redelivered on (re)subscribe say nothing about when the robot was last seen
+    private final MqttManager.MessageListener statusListener = (topic, payload, retained) -> {
+        int robotId = MqttChannel.robotIdOf(topic);
+        if (robotId < 0 || payload.length == 0) {
+            return;
+        }
+        // Parsed once here; no per-message logging or UI posts, a reconnect storm is folded into one update per frame
+        robotPresence.put(robotId, RobotStatus.parse(payload));
+        postPresence(robotId, !retained);
+    };
+
+    private final MqttManager.MessageListener adminListener = (topic, payload, retained) -> {
+        int robotId = MqttChannel.robotIdOf(topic);
+        if (robotId < 0 || payload.length == 0) {
+            return;
+        }
+        if (RobotStatus.parse(payload) == RobotStatus.ADMIN_CONNECTED) {
+            operated.add(robotId);
+        } else {
+            operated.remove(robotId);
+        }
+        postPresence(robotId, !retained);
+    };
+
+    // A robot that is up and has an operator shows as ADMIN_CONNECTED; otherwise its own presence
+    private void postPresence(int robotId, boolean live) {
+        Integer presence = robotPresence.get(robotId);
+        boolean hasOperator = operated.contains(robotId);
+        if (presence == null && !hasOperator) {
+            return;
+        }
+        int base = presence != null ? presence : RobotStatus.UNKNOWN;
+        updates.post(robotId, hasOperator && base != RobotStatus.OFFLINE ? RobotStatus.ADMIN_CONNECTED : base, live);
+    }
+
+    @Override
+    public void onFleetChanged(FleetIndex fleet) {
+        publish();
+        mainHandler.removeCallbacks(snapshotSave);
+        mainHandler.postDelayed(snapshotSave, SAVE_DELAY_MS);
+    }
+
+    private void publish() {
+        // One immutable copy shared by every observer; the list differ needs a stable list
+        current = Collections.unmodifiableList(new ArrayList<>(fleet));
+        for (Observer observer : observers) {
+            observer.onFleetChanged(current);
+        }
+    }
+
+    // Main thread: robots are immutable, so the copy taken here can be written from the I/O thread
+    private void scheduleSave() {
+        Robot[] robots = fleet.toArray(new Robot[0]);
+        ioExecutor.execute(() -> writeSnapshot(robots));
+    }
+
+    private void syncMetadata() {
+        if (metadata == null) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (lastMetadataSyncMs != 0 && now - lastMetadataSyncMs < FleetMetadataConfig.MIN_SYNC_INTERVAL_MS) {
+            return;
+        }
+        lastMetadataSyncMs = now;
+
+        ioExecutor.execute(() -> {
+            try {
+                FleetMetadataClient.SyncResult result = metadata.sync();
+                if (result.notModified) {
+                    Log.d(TAG, "Fleet metadata unchanged");
+                    return;
+                }
+                Log.d(TAG, "Fleet metadata: " + result.updated.size() + " updated, " + result.removed.size() + " removed");
+                mainHandler.post(() -> applyMetadata(result.updated, result.removed));
+            } catch (IOException e) {
+                Log.e(TAG, "❌ Fleet metadata sync failed", e);
+            }
+        });
+    }
+
+    private void loadMetadataCache() {
+        try {
+            List<Robot> cached = new ArrayList<>(metadata.loadCache());
+            if (!cached.isEmpty()) {
+                mainHandler.post(() -> applyMetadata(cached, Collections.emptyList()));
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Ignoring fleet metadata cache", e);
+        }
+    }
+
+    private void applyMetadata(List<Robot> updated, List<Integer> removed) {
+        for (Robot meta : updated) {
+            Robot existing = fleet.find(meta.getId());
+            Robot base = existing != null ? existing : new Robot(meta.getId(), meta.getName(), RobotStatus.UNKNOWN);
+            fleet.put(base.withMetadata(meta));
+        }
+        for (Integer robotId : removed) {
+            fleet.remove(robotId);
+        }
+
+        Set<String> known = new TreeSet<>();
+        for (Robot robot : fleet) {
+            if (robot.getZone() != null) {
+                known.add(robot.getZone());
+            }
+        }
+        zones = Collections.unmodifiableList(new ArrayList<>(known));
+        onFleetChanged(fleet);
+    }
+
+    private void loadSnapshot() {
+        if (!snapshotFile.exists()) {
+            return;
+        }
+
+        List<Robot> loaded = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readUnsignedByte() != SNAPSHOT_VERSION) {
+                Log.w(TAG, "⚠️ Ignoring snapshot with unknown format");
+                return;
+            }
+            int count = in.readInt();
+            if (count < 0 || count > MAX_SNAPSHOT_ROBOTS) {
+                Log.w(TAG, "⚠️ Ignoring snapshot with " + count + " robots");
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                int id = in.readInt();
+                int status = in.readUnsignedByte();
+                long lastSeenMs = in.readLong();
+                String name = in.readUTF();
+                loaded.add(new Robot(id, name, status, lastSeenMs));
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Failed to read fleet snapshot", e);
+            return;
+        }
+
+        mainHandler.post(() -> applySnapshot(loaded));
+    }
+
+    private void applySnapshot(List<Robot> loaded) {
+        // Live messages that beat the snapshot to the main thread win
+        boolean changed = false;
+        for (Robot robot : loaded) {
+            if (fleet.find(robot.getId()) == null) {
+                fleet.put(robot);
+                changed = true;
+            }
+        }
+        if (changed) {
+            publish();
+        }
+        Log.d(TAG, "Snapshot restored: " + loaded.size() + " robots");
+    }
+
+    private void writeSnapshot(Robot[] robots) {
+        File tmp = new File(snapshotFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeByte(SNAPSHOT_VERSION);
+            out.writeInt(robots.length);
+            for (Robot robot : robots) {
+                out.writeInt(robot.getId());
+                out.writeByte(robot.getStatus());
+                out.writeLong(robot.getLastSeenMs());
+                out.writeUTF(robot.getName() != null ? robot.getName() : "");
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Failed to write fleet snapshot", e);
+            tmp.delete();
+            return;
+        }
+
+        // Rename is atomic, so a crash mid-write never leaves a torn snapshot behind
+        if (!tmp.renameTo(snapshotFile)) {
+            Log.w(TAG, "⚠️ Could not replace fleet snapshot");
+            tmp.delete();
+        }
+    }
+}
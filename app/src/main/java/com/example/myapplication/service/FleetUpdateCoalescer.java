@@ -0,0 +1,90 @@
+package com.example.myapplication.service;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.example.myapplication.DTO.Robot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects robot status updates from any thread and applies them to a {@link FleetIndex}
+ * once per display frame. However many messages arrive in between, the UI thread sees a
+ * single batch per frame, and only the newest status per robot survives.
+ */
+public class FleetUpdateCoalescer implements Choreographer.FrameCallback {
+
+    public interface Listener { void onFleetChanged(FleetIndex fleet); }
+
+    private final FleetIndex fleet;
+    private final Listener listener;
+    // Status code per robot, with LIVE set if any of the merged messages was live
+    private static final int LIVE = 1 << 16;
+    private final Map<Integer, Integer> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean frameScheduled = new AtomicBoolean(false);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduleFrame = () -> Choreographer.getInstance().postFrameCallback(this);
+    private volatile boolean stopped = false;
+
+    public FleetUpdateCoalescer(FleetIndex fleet, Listener listener) {
+        this.fleet = fleet;
+        this.listener = listener;
+    }
+
+    /**
+     * Safe from any thread; status is one of the RobotStatus codes. Only a {@code live}
+     * update, i.e. one the robot published just now rather than a retained redelivery,
+     * refreshes the robot's last-seen time.
+     */
+    public void post(int robotId, int status, boolean live) {
+        pending.merge(robotId, live ? status | LIVE : status,
+                (older, newer) -> newer | (older & LIVE));
+        if (frameScheduled.compareAndSet(false, true)) {
+            mainHandler.post(scheduleFrame);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled.set(false);
+        if (stopped) {
+            return;
+        }
+
+        // One timestamp per batch: everything in it arrived within the last frame
+        long nowMs = System.currentTimeMillis();
+        boolean changed = false;
+        for (Integer robotId : pending.keySet()) {
+            Integer boxed = pending.remove(robotId);
+            if (boxed == null) {
+                continue;
+            }
+            int status = boxed & ~LIVE;
+            boolean live = (boxed & LIVE) != 0;
+
+            // Entries are replaced, never mutated, so the list differ can compare old and new.
+            // A live message refreshes last-seen even when the status itself did not change;
+            // a robot only known from a retained message has never been seen (0).
+            Robot current = fleet.find(robotId);
+            long lastSeenMs = live ? nowMs : current != null ? current.getLastSeenMs() : 0;
+            fleet.put(current == null
+                    ? new Robot(robotId, "Robot " + robotId, status, lastSeenMs)
+                    : current.withStatus(status, lastSeenMs));
+            changed = true;
+        }
+
+        if (changed) {
+            listener.onFleetChanged(fleet);
+        }
+    }
+
+    // Must be called on the main thread
+    public void stop() {
+        stopped = true;
+        mainHandler.removeCallbacks(scheduleFrame);
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.myapplication.service;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+
+/**
+ * Per-robot publish channels and their delivery settings.
+ * Topics are {@code robot/<id>/<suffix>}.
+ */
+public enum MqttChannel {
+
+    // High-rate motion commands: fire-and-forget, never stored by the broker
+    CONTROL("control", MqttQos.AT_MOST_ONCE, false),
+
+    // Robot presence: retained birth from the robot phone, "offline" from its Last Will
+    STATUS("status", MqttQos.AT_LEAST_ONCE, true),
+
+    // Operator presence on a robot, kept apart from STATUS so neither client overwrites the other
+    ADMIN("admin", MqttQos.AT_LEAST_ONCE, true),
+
+    // Retained so a robot joining later still picks up the current mode
+    AI_MODE("ai_mode", MqttQos.AT_LEAST_ONCE, true),
+
+    TELEMETRY("telemetry", MqttQos.AT_MOST_ONCE, false);
+
+    public final String suffix;
+    public final MqttQos qos;
+    public final boolean retain;
+
+    MqttChannel(String suffix, MqttQos qos, boolean retain) {
+        this.suffix = suffix;
+        this.qos = qos;
+        this.retain = retain;
+    }
+
+    public String topic(int robotId) {
+        return "robot/" + robotId + "/" + suffix;
+    }
+
+    // Matches this channel for every robot
+    public String topicFilter() {
+        return "robot/+/" + suffix;
+    }
+
+    /**
+     * Robot ID of a {@code robot/<id>/...} topic, parsed in place without allocating,
+     * or -1 if the topic does not have that shape.
+     */
+    public static int robotIdOf(String topic) {
+        final int start = 6; // "robot/".length()
+        if (!topic.startsWith("robot/")) {
+            return -1;
+        }
+
+        int id = 0;
+        int i = start;
+        for (; i < topic.length(); i++) {
+            char c = topic.charAt(i);
+            if (c == '/') {
+                break;
+            }
+            if (c < '0' || c > '9' || i - start >= 9) {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return i > start ? id : -1;
+    }
+}
@@ -1,50 +1,121 @@
 package com.example.myapplication.service;
 
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.MqttClientState;
+import com.hivemq.client.mqtt.MqttGlobalPublishFilter;
+import com.hivemq.client.mqtt.lifecycle.MqttClientDisconnectedContext;
+import com.hivemq.client.mqtt.lifecycle.MqttDisconnectSource;
 import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+import com.hivemq.client.mqtt.mqtt3.message.connect.Mqtt3Connect;
+import com.hivemq.client.mqtt.mqtt3.message.connect.Mqtt3ConnectBuilder;
+import com.hivemq.client.mqtt.mqtt3.message.connect.connack.Mqtt3ConnAck;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
 
-import java.util.UUID;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 public class MqttManager {
 
+    public enum State { CONNECTING, CONNECTED, DISCONNECTED }
+
+    public interface StateListener { void onStateChanged(State state); }
+
+    /**
+     * {@code retained} is set for a retained message the broker delivers on subscribe, which
+     * may be arbitrarily old; it is clear for a message published while we were subscribed.
+     */
+    public interface MessageListener { void onMessage(String topic, byte[] payload, boolean retained); }
+
     private Mqtt3AsyncClient client;
+    private final String username;
+    private final String password;
+
+    private final TopicDispatcher dispatcher = new TopicDispatcher();
+    private final MqttMetrics metrics = new MqttMetrics();
+    private final OutboundBuffer outbound = new OutboundBuffer(OutboundPolicy.fifo(64), metrics);
+    private volatile int reconnectAttempts = 0;
+    private volatile long disconnectedAtMs = 0;
+    private volatile boolean closed = false;
+
+    private final List<StateListener> stateListeners = new CopyOnWriteArrayList<>();
+    private volatile State state = State.DISCONNECTED;
+    private volatile CompletableFuture<MqttManager> connectedFuture = new CompletableFuture<>();
+    private volatile long timeToFirstPublishMs = -1;
+
+    // Presence: the will rides on the shared CONNECT, the current claim's birth goes out on every connect
+    private final Object presenceLock = new Object();
+    private volatile PresenceClaim presence;
+    private volatile Mqtt3Publish will;
+    private volatile Mqtt3Publish appliedWill;
+    private volatile boolean restartingSession = false;
+
+    // Only every PREPARED_SAMPLE_RATE-th prepared publish gets a completion callback
+    private static final int PREPARED_SAMPLE_RATE = 64;
+    // Bumped from the touch and analysis threads alike
+    private final AtomicInteger preparedPublishCount = new AtomicInteger();
+    private final BiConsumer<Mqtt3Publish, Throwable> preparedPublishCallback = (publish, throwable) -> {
+        if (throwable != null) {
+            Log.e("MQTT", "❌ Publish failed: " + throwable.getMessage());
+        } else {
+            recordFirstPublish();
+        }
+    };
 
     /**
-     * Constructor for connecting to a remote/cloud broker
+     * Constructor for connecting to a remote/cloud broker.
+     * Returns immediately; use {@link #whenConnected()} or a {@link StateListener}
+     * to find out when the connection is up. The session is persistent, the keepalive
+     * is {@link MqttManagerConfig#KEEP_ALIVE_SECONDS}, and a dropped link is retried
+     * with jittered exponential backoff.
      *
      * @param brokerHost Broker IP or domain (MQTTX cloud broker)
      * @param brokerPort Broker port (usually 1883)
      * @param username   Optional username (use null if not required)
      * @param password   Optional password (use null if not required)
+     * @param clientId   Stable per install, so the persistent session is resumed on the next launch
      */
-    public MqttManager(String brokerHost, int brokerPort, String username, String password) {
-
-        String clientId = "AndroidClient-" + UUID.randomUUID();
+    public MqttManager(String brokerHost, int brokerPort, String username, String password, String clientId) {
 
+        this.username = username;
+        this.password = password;
         client = MqttClient.builder()
                 .useMqttVersion3()
                 .identifier(clientId)
                 .serverHost(brokerHost)
                 .serverPort(brokerPort)
                 .sslWithDefaultConfig()
+                .addConnectedListener(context -> onConnected())
+                .addDisconnectedListener(this::onDisconnected)
                 .buildAsync();
 
-        // Connect to broker
-        if (username != null && password != null) {
-            connectWithAuth(username, password);
-        } else {
-            connect();
-        }
+        // One global callback; the topic trie routes messages to listeners
+        client.publishes(MqttGlobalPublishFilter.ALL, this::dispatch);
 
-        waitUntilConnected();
+        // Offline buffering: a stale motion command must never be replayed
+        outbound.setPolicy(MqttChannel.CONTROL.topicFilter(), OutboundPolicy.latest(MqttManagerConfig.CONTROL_MAX_AGE_MS));
+        outbound.setPolicy(MqttChannel.STATUS.topicFilter(), OutboundPolicy.latest(OutboundPolicy.NO_EXPIRY));
+        outbound.setPolicy(MqttChannel.ADMIN.topicFilter(), OutboundPolicy.latest(OutboundPolicy.NO_EXPIRY));
+        outbound.setPolicy(MqttChannel.AI_MODE.topicFilter(), OutboundPolicy.latest(OutboundPolicy.NO_EXPIRY));
+        outbound.setPolicy(MqttChannel.TELEMETRY.topicFilter(), OutboundPolicy.fifo(256));
+
+        setState(State.CONNECTING);
+
+        // Connect to broker
+        connect();
     }
 
-    // Connect without authentication
-    private void connect() {
-        client.connect()
+    private CompletableFuture<Mqtt3ConnAck> connect() {
+        return client.connect(buildConnect())
                 .whenComplete((connAck, throwable) -> {
                     if (throwable != null) {
                         Log.e("MQTT", "❌ Failed to connect: " + throwable.getMessage());
@@ -54,59 +125,334 @@ public class MqttManager {
                 });
     }
 
+    // Built for every connect so it carries the current will; backoff reconnects reuse the last one
+    private Mqtt3Connect buildConnect() {
+        Mqtt3ConnectBuilder builder = Mqtt3Connect.builder()
+                .cleanSession(false)
+                .keepAlive(MqttManagerConfig.KEEP_ALIVE_SECONDS);
+        if (username != null && password != null) {
+            builder = builder.simpleAuth()
+                    .username(username)
+                    .password(password.getBytes())
+                    .applySimpleAuth();
+        }
+        Mqtt3Publish currentWill = will;
+        if (currentWill != null) {
+            builder = builder.willPublish(currentWill);
+        }
+        appliedWill = currentWill;
+        return builder.build();
+    }
+
     public boolean isConnected() {
         return client.getState() == MqttClientState.CONNECTED;
     }
 
-    private void waitUntilConnected() {
-        int tries = 0;
-        while (client.getState() != MqttClientState.CONNECTED && tries < 50) {
-            try { Thread.sleep(100); } catch (InterruptedException ignored) {}
-            tries++;
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Completes with this manager once the broker accepted the connection.
+     * After a disconnect a fresh future is handed out, so chained work always
+     * waits for the next successful connect.
+     */
+    public CompletableFuture<MqttManager> whenConnected() {
+        return connectedFuture;
+    }
+
+    public void addStateListener(StateListener listener) {
+        stateListeners.add(listener);
+        listener.onStateChanged(state);
+    }
+
+    public void removeStateListener(StateListener listener) {
+        stateListeners.remove(listener);
+    }
+
+    /**
+     * Milliseconds from process start to the first acknowledged publish, or -1 if none yet.
+     */
+    public long getTimeToFirstPublishMs() {
+        return timeToFirstPublishMs;
+    }
+
+    public MqttMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void onConnected() {
+        if (closed) {
+            // A backoff reconnect landed after disconnect() was called
+            client.disconnect();
+            return;
         }
+        if (disconnectedAtMs > 0) {
+            long outage = SystemClock.uptimeMillis() - disconnectedAtMs;
+            metrics.recordReconnect(outage);
+            disconnectedAtMs = 0;
+            Log.i("MQTT", "🔁 Reconnected after " + outage + " ms (" + metrics + ")");
+        }
+        reconnectAttempts = 0;
+
+        if (will != appliedWill) {
+            // Presence was claimed while this connect was in flight; the will can only be set on CONNECT
+            restartSession();
+            return;
+        }
+
+        resubscribeAll();
+
+        // Birth first, so it overrides a will the broker may have published during the outage
+        PresenceClaim current = presence;
+        if (current != null) {
+            client.publish(current.birth);
+        }
+
+        // Drain, flip to CONNECTED, then drain whatever raced in between
+        outbound.drain(this::send, SystemClock.uptimeMillis());
+        setState(State.CONNECTED);
+        outbound.drain(this::send, SystemClock.uptimeMillis());
+
+        connectedFuture.complete(this);
     }
 
-    // Connect with username/password
-    private void connectWithAuth(String username, String password) {
-        client.connectWith()
-                .simpleAuth()
-                .username(username)
-                .password(password.getBytes())
-                .applySimpleAuth()
-                .send()
-                .whenComplete((connAck, throwable) -> {
-                    if (throwable != null) {
-                        Log.e("MQTT", "❌ Failed to connect with auth: " + throwable.getMessage());
-                    } else {
-                        Log.d("MQTT", "✅ Connected to broker with auth!");
-                    }
-                });
+    private void onDisconnected(MqttClientDisconnectedContext context) {
+        Log.w("MQTT", "⚠️ Disconnected: " + context.getCause().getMessage());
+        if (connectedFuture.isDone()) {
+            connectedFuture = new CompletableFuture<>();
+        }
+
+        if (restartingSession && !closed) {
+            restartingSession = false;
+            setState(State.CONNECTING);
+            connect();
+            return;
+        }
+
+        if (closed || context.getSource() == MqttDisconnectSource.USER) {
+            setState(State.DISCONNECTED);
+            return;
+        }
+
+        if (disconnectedAtMs == 0) {
+            disconnectedAtMs = SystemClock.uptimeMillis();
+        }
+        long delay = nextReconnectDelayMs(reconnectAttempts++);
+        Log.d("MQTT", "Reconnecting in " + delay + " ms (attempt " + reconnectAttempts + ")");
+        context.getReconnector().reconnect(true).delay(delay, TimeUnit.MILLISECONDS);
+        setState(State.CONNECTING);
     }
 
-    // Publish a message to a topic
-    public void publish(String topic, String message) {
-        if (!client.getState().isConnected()) {
-            Log.e("MQTT", "❌ Client not connected, cannot publish");
+    // Exponential backoff with "equal jitter": half fixed, half random
+    private static long nextReconnectDelayMs(int attempt) {
+        long ceiling = MqttManagerConfig.RECONNECT_MAX_DELAY_MS;
+        long base = MqttManagerConfig.RECONNECT_INITIAL_DELAY_MS << Math.min(attempt, 16);
+        long delay = Math.min(base, ceiling);
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private void setState(State newState) {
+        state = newState;
+        for (StateListener listener : stateListeners) {
+            listener.onStateChanged(newState);
+        }
+    }
+
+    /**
+     * Configures how publishes to {@code topicFilter} are buffered while offline.
+     * Rules are checked in the order they were added.
+     */
+    public void setOutboundPolicy(String topicFilter, OutboundPolicy policy) {
+        outbound.setPolicy(topicFilter, policy);
+    }
+
+    // Publish a message on a channel; buffered per the topic's OutboundPolicy while offline
+    public void publish(MqttChannel channel, String topic, String message) {
+        publish(channel, topic, message.getBytes());
+    }
+
+    public void publish(MqttChannel channel, String topic, byte[] payload) {
+        if (state != State.CONNECTED) {
+            outbound.offer(channel, topic, payload, SystemClock.uptimeMillis());
+            Log.w("MQTT", "⏸ Offline, buffered publish to " + topic);
+            return;
+        }
+
+        send(channel, topic, payload);
+    }
+
+    /**
+     * Hot-path publish of a message built ahead of time (see {@link RobotChannel}).
+     * Skips per-call builders and logging; completion is only observed on a sample.
+     */
+    public void publish(MqttChannel channel, Mqtt3Publish publish) {
+        if (state != State.CONNECTED) {
+            outbound.offer(channel, publish.getTopic().toString(), publish.getPayloadAsBytes(),
+                    SystemClock.uptimeMillis());
             return;
         }
 
+        CompletableFuture<Mqtt3Publish> sent = client.publish(publish);
+        if (preparedPublishCount.getAndIncrement() % PREPARED_SAMPLE_RATE == 0 || timeToFirstPublishMs < 0) {
+            sent.whenComplete(preparedPublishCallback);
+        }
+    }
+
+    /**
+     * Announces this client on {@code topic}: {@code birthPayload} is published retained on
+     * every connect, and {@code willPayload} is registered as the Last Will, so the broker
+     * publishes it (retained) if the client disappears without saying goodbye — a crash,
+     * a killed process or a lost network longer than the keepalive allows.
+     * <p>
+     * There is one claim per process and a new claim replaces the previous one. The will
+     * can only be set on CONNECT, so the shared (persistent) session is re-opened when the
+     * will changes: in practice once per process, on the first claim. Re-claiming the same
+     * topic, e.g. when a screen is opened again, only publishes the birth.
+     */
+    public PresenceClaim claimPresence(String topic, String birthPayload, String willPayload) {
+        PresenceClaim claim = new PresenceClaim(this, topic, birthPayload, willPayload);
+        synchronized (presenceLock) {
+            PresenceClaim previous = presence;
+            presence = claim;
+            if (previous != null && !previous.getTopic().equals(topic)) {
+                // Leaving that topic; the new will no longer covers it
+                publish(MqttChannel.STATUS, previous.will);
+            }
+
+            if (!samePresence(claim.will, will)) {
+                will = claim.will;
+                if (state == State.CONNECTED) {
+                    restartSession();
+                }
+            } else if (state == State.CONNECTED) {
+                client.publish(claim.birth);
+            }
+        }
+        return claim;
+    }
+
+    /**
+     * Leaves gracefully if {@code claim} is still the current one: publishes its will payload
+     * ourselves, since a clean DISCONNECT makes the broker discard the will. The will stays
+     * on the session until a new claim replaces it; it says what was just published anyway.
+     */
+    void releasePresence(PresenceClaim claim) {
+        synchronized (presenceLock) {
+            if (presence != claim) {
+                return;
+            }
+            presence = null;
+            // Both presence channels share qos and retain, so either describes the delivery
+            publish(MqttChannel.STATUS, claim.will);
+        }
+    }
+
+    private static boolean samePresence(Mqtt3Publish a, Mqtt3Publish b) {
+        return a != null && b != null
+                && a.getTopic().equals(b.getTopic())
+                && Arrays.equals(a.getPayloadAsBytes(), b.getPayloadAsBytes());
+    }
+
+    // Publishes made meanwhile are buffered and go out on the new connection
+    private void restartSession() {
+        restartingSession = true;
+        setState(State.CONNECTING);
+        client.disconnect();
+    }
+
+    // Deletes the retained message on a topic (an empty retained publish)
+    public void clearRetained(String topic) {
         client.publishWith()
                 .topic(topic)
-                .payload(message.getBytes())
-                .retain(true) // retain last message for testing
+                .retain(true)
+                .send();
+    }
+
+    private void send(MqttChannel channel, String topic, byte[] payload) {
+        client.publishWith()
+                .topic(topic)
+                .qos(channel.qos)
+                .payload(payload)
+                .retain(channel.retain)
                 .send()
                 .whenComplete((ack, throwable) -> {
                     if (throwable != null) {
                         Log.e("MQTT", "❌ Publish failed: " + throwable.getMessage());
                     } else {
-                        Log.d("MQTT", "✅ Published to " + topic + ": " + message);
+                        recordFirstPublish();
+                        Log.d("MQTT", "✅ Published to " + topic);
+                    }
+                });
+    }
+
+    private void recordFirstPublish() {
+        if (timeToFirstPublishMs < 0) {
+            timeToFirstPublishMs = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+            Log.i("MQTT", "⏱ Time to first publish: " + timeToFirstPublishMs + " ms");
+        }
+    }
+
+    /**
+     * Subscribes {@code listener} to {@code topicFilter}. The subscription is kept in a
+     * registry and restored automatically after every reconnect, so callers subscribe once.
+     */
+    public void subscribe(String topicFilter, MessageListener listener) {
+        if (dispatcher.add(topicFilter, listener) && isConnected()) {
+            sendSubscribe(topicFilter);
+        }
+    }
+
+    public void unsubscribe(String topicFilter, MessageListener listener) {
+        if (dispatcher.remove(topicFilter, listener) && isConnected()) {
+            client.unsubscribeWith()
+                    .topicFilter(topicFilter)
+                    .send()
+                    .whenComplete((ack, throwable) -> {
+                        if (throwable != null) {
+                            Log.e("MQTT", "❌ Unsubscribe failed: " + throwable.getMessage());
+                        }
+                    });
+        }
+    }
+
+    private void resubscribeAll() {
+        for (String topicFilter : dispatcher.filters()) {
+            sendSubscribe(topicFilter);
+        }
+    }
+
+    private void sendSubscribe(String topicFilter) {
+        client.subscribeWith()
+                .topicFilter(topicFilter)
+                .send()
+                .whenComplete((subAck, throwable) -> {
+                    if (throwable != null) {
+                        Log.e("MQTT", "❌ Failed to subscribe to " + topicFilter + ": " + throwable.getMessage());
+                    } else {
+                        Log.d("MQTT", "✅ Subscribed to " + topicFilter);
                     }
                 });
     }
 
-    // Disconnect cleanly
+    // Per message this builds the topic string and copies the payload, which listeners may keep
+    private void dispatch(Mqtt3Publish publish) {
+        dispatcher.dispatch(publish.getTopic().toString(), publish.getPayloadAsBytes(), publish.isRetain());
+    }
+
+    // Disconnect cleanly and stop reconnecting
     public void disconnect() {
-        if (client.getState().isConnected()) {
+        closed = true;
+        if (!client.getState().isConnected()) {
+            return;
+        }
+        PresenceClaim current = presence;
+        if (current != null) {
+            presence = null;
+            // A clean DISCONNECT discards the will, so say it ourselves first
+            client.publish(current.will).whenComplete((publish, throwable) -> client.disconnect());
+        } else {
             client.disconnect();
         }
     }
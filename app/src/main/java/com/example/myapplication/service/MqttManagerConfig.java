@@ -6,5 +6,18 @@ public class MqttManagerConfig {
     public static final String USERNAME = "rame1";
     public static final String PASSWORD = "Rame1234";
 
+    // Reconnect backoff: doubles from the initial delay up to the cap, with jitter
+    public static final long RECONNECT_INITIAL_DELAY_MS = 500;
+    public static final long RECONNECT_MAX_DELAY_MS = 30_000;
+
+    // Seconds between pings on an idle link; the broker fires our Last Will after ~1.5x this without traffic
+    public static final int KEEP_ALIVE_SECONDS = 15;
+
+    // A control command buffered offline is dropped if the link is down longer than this
+    public static final long CONTROL_MAX_AGE_MS = 500;
+
+    // Send motion commands as binary CommandFrames; false keeps the text commands the current firmware expects
+    public static final boolean BINARY_COMMANDS = false;
+
     private MqttManagerConfig() {}
 }
@@ -0,0 +1,53 @@
+package com.example.myapplication.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection health counters kept by {@link MqttManager}.
+ * All counters are updated from MQTT client threads and safe to read from any thread.
+ */
+public class MqttMetrics {
+
+    private final AtomicLong reconnectCount = new AtomicLong();
+    private final AtomicLong totalReconnectMs = new AtomicLong();
+    private final AtomicLong messagesLost = new AtomicLong();
+    private volatile long lastReconnectMs = 0;
+
+    void recordReconnect(long durationMs) {
+        reconnectCount.incrementAndGet();
+        totalReconnectMs.addAndGet(durationMs);
+        lastReconnectMs = durationMs;
+    }
+
+    void recordLostMessage() {
+        messagesLost.incrementAndGet();
+    }
+
+    // Number of successful reconnects after a dropped link
+    public long getReconnectCount() {
+        return reconnectCount.get();
+    }
+
+    // Time from link loss to the broker accepting the last reconnect
+    public long getLastReconnectMs() {
+        return lastReconnectMs;
+    }
+
+    // Sum of all outage durations that ended in a reconnect
+    public long getTotalReconnectMs() {
+        return totalReconnectMs.get();
+    }
+
+    // Messages published while the link was down and never delivered
+    public long getMessagesLost() {
+        return messagesLost.get();
+    }
+
+    @Override
+    public String toString() {
+        return "reconnects=" + getReconnectCount()
+                + " last=" + getLastReconnectMs() + "ms"
+                + " total=" + getTotalReconnectMs() + "ms"
+                + " lost=" + getMessagesLost();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.myapplication.service;
+
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bounded, lock-free holding area for messages published while {@link MqttManager}
+ * is offline. Each topic filter gets an {@link OutboundPolicy}; the buffer is drained
+ * in one go when the link comes back.
+ */
+class OutboundBuffer {
+
+    interface Sender { void send(MqttChannel channel, String topic, byte[] payload); }
+
+    // Upper bound on distinct topics held under LATEST policies
+    private static final int MAX_LATEST_TOPICS = 1024;
+
+    private static final class Pending {
+        final MqttChannel channel;
+        final String topic;
+        final byte[] payload;
+        final long enqueuedAtMs;
+        final OutboundPolicy policy;
+
+        Pending(MqttChannel channel, String topic, byte[] payload, long enqueuedAtMs, OutboundPolicy policy) {
+            this.channel = channel;
+            this.topic = topic;
+            this.payload = payload;
+            this.enqueuedAtMs = enqueuedAtMs;
+            this.policy = policy;
+        }
+    }
+
+    private static final class Rule {
+        final MqttTopicFilter filter;
+        final OutboundPolicy policy;
+        final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+
+        Rule(String topicFilter, OutboundPolicy policy) {
+            this.filter = MqttTopicFilter.of(topicFilter);
+            this.policy = policy;
+        }
+    }
+
+    private final List<Rule> rules = new CopyOnWriteArrayList<>();
+    private final Rule defaultRule;
+    private final Map<String, AtomicReference<Pending>> latest = new ConcurrentHashMap<>();
+    private final MqttMetrics metrics;
+
+    OutboundBuffer(OutboundPolicy defaultPolicy, MqttMetrics metrics) {
+        this.defaultRule = new Rule("#", defaultPolicy);
+        this.metrics = metrics;
+    }
+
+    // Rules are matched in registration order; the first match wins
+    void setPolicy(String topicFilter, OutboundPolicy policy) {
+        rules.add(new Rule(topicFilter, policy));
+    }
+
+    void offer(MqttChannel channel, String topic, byte[] payload, long nowMs) {
+        Rule rule = ruleFor(topic);
+        // Senders may reuse their payload buffers, so keep a private copy
+        Pending pending = new Pending(channel, topic, payload.clone(), nowMs, rule.policy);
+
+        switch (rule.policy.mode) {
+            case LATEST:
+                offerLatest(pending);
+                break;
+
+            case FIFO:
+                rule.queue.offer(pending);
+                if (rule.size.incrementAndGet() > rule.policy.capacity) {
+                    if (rule.queue.poll() != null) {
+                        rule.size.decrementAndGet();
+                        metrics.recordLostMessage(); // evicted oldest
+                    }
+                }
+                break;
+
+            default:
+                metrics.recordLostMessage();
+                break;
+        }
+    }
+
+    private void offerLatest(Pending pending) {
+        while (true) {
+            AtomicReference<Pending> slot = latest.get(pending.topic);
+            if (slot == null) {
+                if (latest.size() >= MAX_LATEST_TOPICS) {
+                    metrics.recordLostMessage();
+                    return;
+                }
+                slot = latest.computeIfAbsent(pending.topic, t -> new AtomicReference<>());
+            }
+            if (slot.getAndSet(pending) != null) {
+                metrics.recordLostMessage(); // superseded
+            }
+            if (latest.get(pending.topic) == slot || !slot.compareAndSet(pending, null)) {
+                // Still the topic's slot, or a drain that retired it has already taken the message
+                return;
+            }
+            // Landed in a slot drain() had just retired; put it into the topic's new one
+        }
+    }
+
+    /**
+     * Sends everything still worth sending: FIFO queues first, in order, then the
+     * latest value of each topic. Expired entries are counted as lost.
+     */
+    void drain(Sender sender, long nowMs) {
+        for (Rule rule : rules) {
+            drainQueue(rule, sender, nowMs);
+        }
+        drainQueue(defaultRule, sender, nowMs);
+
+        for (Map.Entry<String, AtomicReference<Pending>> entry : latest.entrySet()) {
+            AtomicReference<Pending> slot = entry.getValue();
+            // Retired before it is emptied, so topics that went quiet do not count against the cap
+            latest.remove(entry.getKey(), slot);
+            Pending pending = slot.getAndSet(null);
+            if (pending == null) {
+                continue;
+            }
+            if (pending.policy.isExpired(pending.enqueuedAtMs, nowMs)) {
+                metrics.recordLostMessage();
+            } else {
+                sender.send(pending.channel, pending.topic, pending.payload);
+            }
+        }
+    }
+
+    private void drainQueue(Rule rule, Sender sender, long nowMs) {
+        Pending pending;
+        while ((pending = rule.queue.poll()) != null) {
+            rule.size.decrementAndGet();
+            if (pending.policy.isExpired(pending.enqueuedAtMs, nowMs)) {
+                metrics.recordLostMessage();
+            } else {
+                sender.send(pending.channel, pending.topic, pending.payload);
+            }
+        }
+    }
+
+    private Rule ruleFor(String topic) {
+        MqttTopic parsed = MqttTopic.of(topic);
+        for (Rule rule : rules) {
+            if (rule.filter.matches(parsed)) {
+                return rule;
+            }
+        }
+        return defaultRule;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.myapplication.service;
+
+/**
+ * What {@link MqttManager} does with a publish made while the link is down.
+ */
+public final class OutboundPolicy {
+
+    public enum Mode {
+        DROP,   // discard immediately
+        LATEST, // keep only the newest message per topic
+        FIFO    // keep messages in order, evicting the oldest past the cap
+    }
+
+    public static final long NO_EXPIRY = 0;
+
+    public final Mode mode;
+    public final int capacity;
+    public final long maxAgeMs;
+
+    private OutboundPolicy(Mode mode, int capacity, long maxAgeMs) {
+        this.mode = mode;
+        this.capacity = capacity;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    public static OutboundPolicy drop() {
+        return new OutboundPolicy(Mode.DROP, 0, NO_EXPIRY);
+    }
+
+    /**
+     * Latest value wins. With a {@code maxAgeMs} the value is also discarded if the link
+     * comes back too late, so stale motion commands are never replayed.
+     */
+    public static OutboundPolicy latest(long maxAgeMs) {
+        return new OutboundPolicy(Mode.LATEST, 1, maxAgeMs);
+    }
+
+    public static OutboundPolicy fifo(int capacity) {
+        return new OutboundPolicy(Mode.FIFO, capacity, NO_EXPIRY);
+    }
+
+    boolean isExpired(long enqueuedAtMs, long nowMs) {
+        return maxAgeMs != NO_EXPIRY && nowMs - enqueuedAtMs > maxAgeMs;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.myapplication.service;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+
+/**
+ * One screen's presence on a topic, announced over the shared connection: the birth is
+ * published retained on every connect, and the will is the session's Last Will.
+ * Obtain one with {@link MqttManager#claimPresence} and {@link #release()} it when the
+ * screen closes.
+ */
+public final class PresenceClaim {
+
+    private final MqttManager owner;
+    private final String topic;
+    final Mqtt3Publish birth;
+    final Mqtt3Publish will;
+    private volatile boolean released = false;
+
+    PresenceClaim(MqttManager owner, String topic, String birthPayload, String willPayload) {
+        this.owner = owner;
+        this.topic = topic;
+        this.birth = presenceMessage(topic, birthPayload);
+        this.will = presenceMessage(topic, willPayload);
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Leaves gracefully. Nothing is published if another claim has replaced this one in the
+     * meantime: a screen that was replaced must not mark its successor offline.
+     * Safe to call more than once.
+     */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        owner.releasePresence(this);
+    }
+
+    private static Mqtt3Publish presenceMessage(String topic, String payload) {
+        return Mqtt3Publish.builder()
+                .topic(topic)
+                .qos(MqttQos.AT_LEAST_ONCE)
+                .payload(payload.getBytes())
+                .retain(true)
+                .build();
+    }
+}
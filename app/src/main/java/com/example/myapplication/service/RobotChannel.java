@@ -0,0 +1,130 @@
+package com.example.myapplication.service;
+
+import android.util.Log;
+
+import com.example.myapplication.DTO.RobotStatus;
+import com.example.myapplication.protocol.CommandEncoder;
+import com.example.myapplication.protocol.CommandFrame;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+
+/**
+ * Everything one screen publishes for one robot. Topics, and in text mode the
+ * complete command messages, are built once here. A binary frame differs per command
+ * (sequence and timestamp), so it is encoded and copied into a new publish each time.
+ * <p>
+ * {@link #sendCommand} is not thread-safe: use one instance per sending thread.
+ */
+public class RobotChannel {
+
+    private static final String TAG = "RobotChannel";
+
+    private final MqttManager mqtt;
+    private final int robotId;
+    private final MqttTopic controlTopic;
+    private final String statusTopic;
+    private final String adminTopic;
+    private final String aiModeTopic;
+    private final CommandEncoder encoder;
+    private final Mqtt3Publish[] textCommands;
+    private final boolean debugLog;
+    private volatile PresenceClaim presence;
+
+    public RobotChannel(MqttManager mqtt, int robotId) {
+        this.mqtt = mqtt;
+        this.robotId = robotId;
+        this.controlTopic = MqttTopic.of(MqttChannel.CONTROL.topic(robotId));
+        this.statusTopic = MqttChannel.STATUS.topic(robotId);
+        this.adminTopic = MqttChannel.ADMIN.topic(robotId);
+        this.aiModeTopic = MqttChannel.AI_MODE.topic(robotId);
+        this.encoder = new CommandEncoder(MqttManagerConfig.BINARY_COMMANDS);
+        this.debugLog = Log.isLoggable(TAG, Log.DEBUG);
+
+        if (encoder.isBinary()) {
+            textCommands = null;
+        } else {
+            textCommands = new Mqtt3Publish[CommandFrame.OP_DRIVE + 1];
+            for (int op = 0; op < textCommands.length; op++) {
+                textCommands[op] = buildControl(encoder.encode(op));
+            }
+        }
+    }
+
+    public int getRobotId() {
+        return robotId;
+    }
+
+    public String getControlTopic() {
+        return controlTopic.toString();
+    }
+
+    // Sends a discrete motion command (FORWARD, LEFT, STOP, ...)
+    public void sendCommand(int opcode) {
+        if (textCommands != null) {
+            mqtt.publish(MqttChannel.CONTROL, textCommands[opcode]);
+        } else {
+            mqtt.publish(MqttChannel.CONTROL, buildFrame(encoder.encode(opcode)));
+        }
+
+        if (debugLog) {
+            Log.d(TAG, "Robot " + robotId + " ← " + CommandFrame.nameOf(opcode));
+        }
+    }
+
+    /**
+     * Sends a continuous {@link CommandFrame#OP_DRIVE} command. Only binary frames carry
+     * speed and steering; check {@link #isBinary()} and fall back to discrete commands.
+     */
+    public void sendDrive(int speed, int steering) {
+        if (textCommands != null) {
+            throw new IllegalStateException("Drive commands need binary frames");
+        }
+        mqtt.publish(MqttChannel.CONTROL, buildFrame(encoder.encode(CommandFrame.OP_DRIVE, speed, steering)));
+
+        if (debugLog) {
+            Log.d(TAG, "Robot " + robotId + " ← DRIVE " + speed + "/" + steering);
+        }
+    }
+
+    public boolean isBinary() {
+        return encoder.isBinary();
+    }
+
+    // This phone is the robot: "online" while connected, "offline" from the broker if it vanishes
+    public void claimRobotPresence() {
+        presence = mqtt.claimPresence(statusTopic,
+                RobotStatus.nameOf(RobotStatus.ONLINE), RobotStatus.nameOf(RobotStatus.OFFLINE));
+    }
+
+    // An operator is driving this robot, for as long as this client stays connected
+    public void claimOperatorPresence() {
+        presence = mqtt.claimPresence(adminTopic,
+                RobotStatus.nameOf(RobotStatus.ADMIN_CONNECTED), RobotStatus.nameOf(RobotStatus.ADMIN_DISCONNECTED));
+    }
+
+    // Ends this channel's own claim only; one made since by another screen is left alone
+    public void releasePresence() {
+        if (presence != null) {
+            presence.release();
+            presence = null;
+        }
+    }
+
+    public void publishAiMode(boolean on) {
+        mqtt.publish(MqttChannel.AI_MODE, aiModeTopic, on ? "ON" : "OFF");
+    }
+
+    // The publish wraps its payload and is sent asynchronously, while the encoder reuses its buffers
+    private Mqtt3Publish buildFrame(byte[] frame) {
+        return buildControl(frame.clone());
+    }
+
+    private Mqtt3Publish buildControl(byte[] payload) {
+        return Mqtt3Publish.builder()
+                .topic(controlTopic)
+                .qos(MqttChannel.CONTROL.qos)
+                .retain(MqttChannel.CONTROL.retain)
+                .payload(payload)
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.myapplication.service;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.util.UUID;
+
+/**
+ * Process-wide, reference-counted owner of the single {@link MqttManager}.
+ * Every screen acquires the same connection instead of building its own, so
+ * switching screens no longer costs a TLS handshake and a new client identity.
+ * {@link com.example.myapplication.activity.MainActivity} takes the first
+ * reference at launch, so in practice the client lives as long as the app task
+ * and reconnects reuse it (and its TLS session cache).
+ */
+public final class SharedMqttManager {
+
+    private static final String TAG = "SharedMqttManager";
+
+    private static final String PREFS = "mqtt";
+    private static final String KEY_CLIENT_ID = "client_id";
+
+    private static MqttManager instance;
+    private static int refCount = 0;
+
+    private SharedMqttManager() {}
+
+    /**
+     * Returns the shared connection, creating it on first use.
+     * Every call must be balanced by a {@link #release()}.
+     */
+    public static synchronized MqttManager acquire(Context context) {
+        if (instance == null) {
+            instance = new MqttManager(
+                    MqttManagerConfig.HOST,
+                    MqttManagerConfig.PORT,
+                    MqttManagerConfig.USERNAME,
+                    MqttManagerConfig.PASSWORD,
+                    clientId(context)
+            );
+            Log.d(TAG, "Shared MQTT connection created");
+        }
+        refCount++;
+        Log.d(TAG, "acquire → refs: " + refCount);
+        return instance;
+    }
+
+    /**
+     * The client id of this install, created on first launch. The session is persistent,
+     * so the id must survive restarts for the broker to resume it instead of orphaning it.
+     */
+    private static String clientId(Context context) {
+        SharedPreferences prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        String id = prefs.getString(KEY_CLIENT_ID, null);
+        if (id == null) {
+            id = "AndroidClient-" + UUID.randomUUID();
+            prefs.edit().putString(KEY_CLIENT_ID, id).apply();
+        }
+        return id;
+    }
+
+    /**
+     * Drops one reference. The connection is closed when the last screen lets go.
+     */
+    public static synchronized void release() {
+        if (refCount == 0) {
+            Log.w(TAG, "release() without matching acquire()");
+            return;
+        }
+        refCount--;
+        Log.d(TAG, "release → refs: " + refCount);
+
+        if (refCount == 0 && instance != null) {
+            instance.disconnect();
+            instance = null;
+            Log.d(TAG, "Shared MQTT connection closed");
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.myapplication.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes incoming messages to listeners by topic filter, using a trie keyed on topic
+ * levels with MQTT {@code +} and {@code #} wildcards. Matching walks the topic string
+ * in place and iterates plain arrays, so the trie adds no allocation of its own to a
+ * message; the cost depends on topic depth, not on how many filters or robots are
+ * registered.
+ * <p>
+ * Registration is synchronized and copy-on-write; dispatch is lock-free.
+ */
+class TopicDispatcher {
+
+    private static final MqttManager.MessageListener[] NO_LISTENERS = new MqttManager.MessageListener[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        final String level;
+        volatile Node[] children = NO_CHILDREN;
+        volatile Node plus;
+        volatile Node hash;
+        volatile MqttManager.MessageListener[] listeners = NO_LISTENERS;
+
+        Node(String level) {
+            this.level = level;
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && plus == null && hash == null && listeners.length == 0;
+        }
+    }
+
+    private final Node root = new Node("");
+
+    /**
+     * @return true if this is the first listener on {@code topicFilter}
+     */
+    synchronized boolean add(String topicFilter, MqttManager.MessageListener listener) {
+        Node node = root;
+        for (String level : topicFilter.split("/", -1)) {
+            node = childFor(node, level);
+        }
+
+        MqttManager.MessageListener[] old = node.listeners;
+        MqttManager.MessageListener[] updated = new MqttManager.MessageListener[old.length + 1];
+        System.arraycopy(old, 0, updated, 0, old.length);
+        updated[old.length] = listener;
+        node.listeners = updated;
+        return old.length == 0;
+    }
+
+    /**
+     * @return true if {@code topicFilter} has no listeners left
+     */
+    synchronized boolean remove(String topicFilter, MqttManager.MessageListener listener) {
+        String[] levels = topicFilter.split("/", -1);
+        Node[] path = new Node[levels.length + 1];
+        path[0] = root;
+        for (int i = 0; i < levels.length; i++) {
+            path[i + 1] = find(path[i], levels[i]);
+            if (path[i + 1] == null) {
+                return false;
+            }
+        }
+
+        Node node = path[levels.length];
+        MqttManager.MessageListener[] old = node.listeners;
+        int index = -1;
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] == listener) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return false;
+        }
+
+        MqttManager.MessageListener[] updated = new MqttManager.MessageListener[old.length - 1];
+        System.arraycopy(old, 0, updated, 0, index);
+        System.arraycopy(old, index + 1, updated, index, old.length - index - 1);
+        node.listeners = updated;
+
+        // Prune branches that no longer lead anywhere
+        for (int i = levels.length; i > 0 && path[i].isEmpty(); i--) {
+            detach(path[i - 1], path[i]);
+        }
+        return updated.length == 0;
+    }
+
+    /**
+     * Every filter that currently has listeners, e.g. to re-subscribe after a reconnect.
+     */
+    synchronized List<String> filters() {
+        List<String> out = new ArrayList<>();
+        collect(root, null, out);
+        return out;
+    }
+
+    void dispatch(String topic, byte[] payload, boolean retained) {
+        match(root, topic, 0, payload, retained);
+    }
+
+    private void match(Node node, String topic, int start, byte[] payload, boolean retained) {
+        // '#' also matches its parent level, so check it before consuming more of the topic
+        Node hash = node.hash;
+        if (hash != null) {
+            notify(hash, topic, payload, retained);
+        }
+
+        if (start > topic.length()) {
+            notify(node, topic, payload, retained);
+            return;
+        }
+
+        int end = topic.indexOf('/', start);
+        if (end < 0) {
+            end = topic.length();
+        }
+        int length = end - start;
+
+        Node[] children = node.children;
+        for (int i = 0; i < children.length; i++) {
+            Node child = children[i];
+            if (child.level.length() == length && topic.regionMatches(start, child.level, 0, length)) {
+                match(child, topic, end + 1, payload, retained);
+            }
+        }
+
+        Node plus = node.plus;
+        if (plus != null) {
+            match(plus, topic, end + 1, payload, retained);
+        }
+    }
+
+    private static void notify(Node node, String topic, byte[] payload, boolean retained) {
+        MqttManager.MessageListener[] listeners = node.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onMessage(topic, payload, retained);
+        }
+    }
+
+    private static Node childFor(Node parent, String level) {
+        Node existing = find(parent, level);
+        if (existing != null) {
+            return existing;
+        }
+
+        Node child = new Node(level);
+        if (level.equals("+")) {
+            parent.plus = child;
+        } else if (level.equals("#")) {
+            parent.hash = child;
+        } else {
+            Node[] old = parent.children;
+            Node[] updated = new Node[old.length + 1];
+            System.arraycopy(old, 0, updated, 0, old.length);
+            updated[old.length] = child;
+            parent.children = updated;
+        }
+        return child;
+    }
+
+    private static Node find(Node parent, String level) {
+        if (level.equals("+")) {
+            return parent.plus;
+        }
+        if (level.equals("#")) {
+            return parent.hash;
+        }
+        for (Node child : parent.children) {
+            if (child.level.equals(level)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static void detach(Node parent, Node child) {
+        if (parent.plus == child) {
+            parent.plus = null;
+        } else if (parent.hash == child) {
+            parent.hash = null;
+        } else {
+            Node[] old = parent.children;
+            Node[] updated = new Node[old.length - 1];
+            int j = 0;
+            for (Node n : old) {
+                if (n != child) {
+                    updated[j++] = n;
+                }
+            }
+            parent.children = updated;
+        }
+    }
+
+    private static void collect(Node node, String prefix, List<String> out) {
+        if (node.listeners.length > 0) {
+            out.add(prefix);
+        }
+        for (Node child : node.children) {
+            collect(child, join(prefix, child.level), out);
+        }
+        if (node.plus != null) {
+            collect(node.plus, join(prefix, "+"), out);
+        }
+        if (node.hash != null) {
+            collect(node.hash, join(prefix, "#"), out);
+        }
+    }
+
+    private static String join(String prefix, String level) {
+        return prefix == null ? level : prefix + "/" + level;
+    }
+}
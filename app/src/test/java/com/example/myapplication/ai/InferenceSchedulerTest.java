@@ -0,0 +1,109 @@
+package com.example.myapplication.ai;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InferenceSchedulerTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsACpuShareAboveOneCore() {
+        new InferenceScheduler(100, 1.5, 15, 1);
+    }
+
+    @Test
+    public void rateCapSpacesDetectionStarts() {
+        InferenceScheduler scheduler = new InferenceScheduler(1_000, 1.0, 10, 2);
+
+        assertTrue(scheduler.shouldRun(0));
+        scheduler.onInferenceDone(0, 5);
+        assertFalse(scheduler.shouldRun(50));
+        assertFalse(scheduler.shouldRun(99));
+        assertTrue(scheduler.shouldRun(100));
+
+        assertEquals(2, scheduler.getDetectedFrames());
+        assertEquals(2, scheduler.getSkippedFrames());
+    }
+
+    @Test
+    public void skipsWhileEveryDetectionSlotIsBusy() {
+        InferenceScheduler scheduler = new InferenceScheduler(1_000, 1.0, 1_000, 2);
+
+        assertTrue(scheduler.shouldRun(0));
+        assertTrue(scheduler.shouldRun(10));
+        assertFalse(scheduler.shouldRun(20));
+        assertEquals(2, scheduler.getInFlight());
+
+        // A failure frees its slot without touching the averages
+        scheduler.onInferenceFailed();
+        assertEquals(-1, scheduler.getAverageLatencyMs(), 0);
+        assertTrue(scheduler.shouldRun(30));
+    }
+
+    @Test
+    public void cpuShareStretchesTheInterval() {
+        InferenceScheduler scheduler = new InferenceScheduler(1_000, 0.5, 30, 1);
+
+        assertTrue(scheduler.shouldRun(0));
+        scheduler.onInferenceDone(0, 40);
+        // 40 ms of detector time at most every other 40 ms
+        assertEquals(40, scheduler.getAverageServiceMs(), 0);
+        assertEquals(80, scheduler.targetIntervalMs());
+        assertFalse(scheduler.shouldRun(79));
+        assertTrue(scheduler.shouldRun(80));
+    }
+
+    @Test
+    public void overLatencyBudgetDoublesTheInterval() {
+        InferenceScheduler scheduler = new InferenceScheduler(50, 1.0, 30, 1);
+
+        assertTrue(scheduler.shouldRun(0));
+        scheduler.onInferenceDone(0, 100);
+        assertEquals(200, scheduler.targetIntervalMs());
+        assertEquals(5.0, scheduler.getTargetRateHz(), 1e-9);
+    }
+
+    @Test
+    public void overlappingDetectionsMeasureServiceFromCompletionSpacing() {
+        InferenceScheduler scheduler = new InferenceScheduler(1_000, 1.0, 1_000, 2);
+
+        assertTrue(scheduler.shouldRun(0));
+        assertTrue(scheduler.shouldRun(10));
+        // The first result alone assumes full overlap: 60 ms over two slots
+        scheduler.onInferenceDone(0, 60);
+        assertEquals(30, scheduler.getAverageServiceMs(), 0);
+        // The second queued behind the first, so its busy time is the completion spacing
+        scheduler.onInferenceDone(10, 90);
+        assertEquals(30, scheduler.getAverageServiceMs(), 0);
+        assertEquals(64, scheduler.getAverageLatencyMs(), 1e-9);
+        assertEquals(0, scheduler.getInFlight());
+    }
+
+    @Test
+    public void aloneDetectionsOnlyLowerTheServiceEstimate() {
+        InferenceScheduler scheduler = new InferenceScheduler(1_000, 1.0, 1_000, 2);
+
+        assertTrue(scheduler.shouldRun(0));
+        scheduler.onInferenceDone(0, 20);
+        assertEquals(10, scheduler.getAverageServiceMs(), 0);
+
+        // Ran alone for 50 ms: part of it may have been overlap, so the estimate holds
+        assertTrue(scheduler.shouldRun(100));
+        scheduler.onInferenceDone(100, 150);
+        assertEquals(10, scheduler.getAverageServiceMs(), 0);
+
+        // Ran alone for 5 ms: the detector is at least that fast
+        assertTrue(scheduler.shouldRun(200));
+        scheduler.onInferenceDone(200, 205);
+        assertEquals(9, scheduler.getAverageServiceMs(), 1e-9);
+    }
+
+    @Test
+    public void countsStaleResults() {
+        InferenceScheduler scheduler = new InferenceScheduler(1_000, 1.0, 15, 2);
+        scheduler.onStaleResult();
+        scheduler.onStaleResult();
+        assertEquals(2, scheduler.getStaleResults());
+        assertTrue(scheduler.toString().contains("stale 2"));
+    }
+}
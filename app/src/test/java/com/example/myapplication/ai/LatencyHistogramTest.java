@@ -0,0 +1,83 @@
+package com.example.myapplication.ai;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueWithinPrecision() {
+        for (long v = 0; v < 1 << 20; v++) {
+            int bucket = LatencyHistogram.bucketOf(v);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue("value " + v, upper >= v);
+            assertTrue("value " + v, upper - v <= Math.max(0, v / 8));
+            if (bucket > 0) {
+                assertTrue("value " + v, LatencyHistogram.upperBoundOf(bucket - 1) < v);
+            }
+        }
+    }
+
+    @Test
+    public void percentilesOfUniformSamples() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) {
+            histogram.recordMicros(ms * 1000L);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(100_000, histogram.getMaxMicros());
+        assertEquals(50_500, histogram.getMeanMicros());
+        assertWithin(50_000, histogram.percentileMicros(0.5));
+        assertWithin(95_000, histogram.percentileMicros(0.95));
+        assertWithin(99_000, histogram.percentileMicros(0.99));
+        assertEquals(100_000, histogram.percentileMicros(1.0));
+    }
+
+    @Test
+    public void emptyAndResetReportZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentileMicros(0.99));
+        histogram.recordMicros(5_000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentileMicros(0.5));
+    }
+
+    @Test
+    public void hugeValuesLandInLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordMicros(Long.MAX_VALUE / 2);
+        assertEquals(1, histogram.getCount());
+        assertEquals(Long.MAX_VALUE / 2, histogram.percentileMicros(0.5));
+    }
+
+    @Test
+    public void concurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.recordMicros(i % 1000);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(999, histogram.getMaxMicros());
+    }
+
+    // Bucket bounds are within 12.5% above the true value
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 8);
+    }
+}
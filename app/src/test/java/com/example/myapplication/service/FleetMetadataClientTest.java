@@ -0,0 +1,148 @@
+package com.example.myapplication.service;
+
+import com.example.myapplication.DTO.Robot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class FleetMetadataClientTest {
+
+    private static final String FULL_LISTING = "{\"version\":\"v1\",\"full\":true,\"robots\":["
+            + "{\"id\":1,\"name\":\"Dock runner\",\"zone\":\"A\",\"capabilities\":[\"camera\"]},"
+            + "{\"id\":2,\"name\":\"Aisle scout\",\"zone\":\"B\",\"capabilities\":[\"camera\",\"ai\"]}]}";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private MockWebServer server;
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        cacheFile = new File(tmp.getRoot(), "fleet_metadata.bin");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private FleetMetadataClient newClient() {
+        return new FleetMetadataClient(server.url("/api/").toString(), cacheFile);
+    }
+
+    @Test
+    public void fullSync_thenNotModified_sendsEtagAndVersion() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"e1\"").setBody(FULL_LISTING));
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        FleetMetadataClient client = newClient();
+        FleetMetadataClient.SyncResult first = client.sync();
+        assertFalse(first.notModified);
+        assertEquals(2, first.updated.size());
+        Robot scout = first.updated.get(1);
+        assertEquals("Aisle scout", scout.getName());
+        assertEquals("B", scout.getZone());
+        assertEquals(Arrays.asList("camera", "ai"), scout.getCapabilities());
+
+        RecordedRequest initial = server.takeRequest();
+        assertEquals("/api/robots", initial.getPath());
+        assertNull(initial.getHeader("If-None-Match"));
+
+        FleetMetadataClient.SyncResult second = client.sync();
+        assertTrue(second.notModified);
+        assertTrue(second.updated.isEmpty());
+
+        RecordedRequest conditional = server.takeRequest();
+        assertEquals("\"e1\"", conditional.getHeader("If-None-Match"));
+        assertEquals("v1", conditional.getRequestUrl().queryParameter("since"));
+    }
+
+    @Test
+    public void deltaSync_mergesChangesAndRemovals() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"e1\"").setBody(FULL_LISTING));
+        server.enqueue(new MockResponse().setHeader("ETag", "\"e2\"").setBody(
+                "{\"version\":\"v2\",\"full\":false,\"removed\":[1],"
+                        + "\"robots\":[{\"id\":3,\"name\":\"Night shift\",\"zone\":\"B\"}]}"));
+
+        FleetMetadataClient client = newClient();
+        client.sync();
+        FleetMetadataClient.SyncResult delta = client.sync();
+
+        assertEquals(1, delta.updated.size());
+        assertEquals(3, delta.updated.get(0).getId());
+        assertTrue(delta.updated.get(0).getCapabilities().isEmpty());
+        assertEquals(Arrays.asList(1), delta.removed);
+
+        // The merged state survives a restart through the disk cache
+        List<Robot> cached = new ArrayList<>(newClient().loadCache());
+        assertEquals(2, cached.size());
+        assertEquals(2, cached.get(0).getId());
+        assertEquals(Arrays.asList("camera", "ai"), cached.get(0).getCapabilities());
+        assertEquals("Night shift", cached.get(1).getName());
+    }
+
+    @Test
+    public void fullListing_dropsRobotsItNoLongerMentions() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"e1\"").setBody(FULL_LISTING));
+        server.enqueue(new MockResponse().setHeader("ETag", "\"e3\"").setBody(
+                "{\"version\":\"v3\",\"full\":true,\"robots\":[{\"id\":2,\"name\":\"Aisle scout\",\"zone\":\"C\"}]}"));
+
+        FleetMetadataClient client = newClient();
+        client.sync();
+        FleetMetadataClient.SyncResult result = client.sync();
+
+        assertEquals(Arrays.asList(1), result.removed);
+        Collection<Robot> cached = newClient().loadCache();
+        assertEquals(1, cached.size());
+        assertEquals("C", cached.iterator().next().getZone());
+    }
+
+    @Test
+    public void cachedClient_startsWithConditionalRequest() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"e1\"").setBody(FULL_LISTING));
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        newClient().sync();
+        server.takeRequest();
+
+        FleetMetadataClient restarted = newClient();
+        assertEquals(2, restarted.loadCache().size());
+        assertTrue(restarted.sync().notModified);
+        assertEquals("\"e1\"", server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void serverError_keepsCache() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"e1\"").setBody(FULL_LISTING));
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        FleetMetadataClient client = newClient();
+        client.sync();
+        try {
+            client.sync();
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // fall through
+        }
+        assertEquals(2, newClient().loadCache().size());
+    }
+}
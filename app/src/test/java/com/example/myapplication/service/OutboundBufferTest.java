@@ -0,0 +1,95 @@
+package com.example.myapplication.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OutboundBufferTest {
+
+    private MqttMetrics metrics;
+    private OutboundBuffer buffer;
+    private final List<String> sent = new ArrayList<>();
+    private final OutboundBuffer.Sender sender =
+            (channel, topic, payload) -> sent.add(topic + "=" + new String(payload, StandardCharsets.UTF_8));
+
+    @Before
+    public void setUp() {
+        metrics = new MqttMetrics();
+        buffer = new OutboundBuffer(OutboundPolicy.drop(), metrics);
+        buffer.setPolicy("robot/+/control", OutboundPolicy.latest(100));
+        buffer.setPolicy("robot/+/status", OutboundPolicy.latest(OutboundPolicy.NO_EXPIRY));
+        buffer.setPolicy("robot/+/telemetry", OutboundPolicy.fifo(3));
+    }
+
+    private void offer(MqttChannel channel, String topic, String payload, long nowMs) {
+        buffer.offer(channel, topic, payload.getBytes(StandardCharsets.UTF_8), nowMs);
+    }
+
+    @Test
+    public void fifoKeepsOrderAndEvictsTheOldest() {
+        for (int i = 1; i <= 5; i++) {
+            offer(MqttChannel.TELEMETRY, "robot/1/telemetry", "t" + i, i);
+        }
+        buffer.drain(sender, 10);
+
+        assertEquals(Arrays.asList("robot/1/telemetry=t3", "robot/1/telemetry=t4", "robot/1/telemetry=t5"), sent);
+        assertEquals(2, metrics.getMessagesLost());
+    }
+
+    @Test
+    public void latestKeepsTheNewestPerTopic() {
+        offer(MqttChannel.CONTROL, "robot/1/control", "forward", 0);
+        offer(MqttChannel.CONTROL, "robot/1/control", "stop", 10);
+        offer(MqttChannel.CONTROL, "robot/2/control", "left", 20);
+        buffer.drain(sender, 50);
+
+        assertEquals(2, sent.size());
+        assertTrue(sent.contains("robot/1/control=stop"));
+        assertTrue(sent.contains("robot/2/control=left"));
+        assertEquals(1, metrics.getMessagesLost());
+    }
+
+    @Test
+    public void expiredValuesAreDroppedAndCounted() {
+        offer(MqttChannel.CONTROL, "robot/1/control", "forward", 0);
+        offer(MqttChannel.STATUS, "robot/1/status", "online", 0);
+        buffer.drain(sender, 1_000);
+
+        // Only the control policy has a maximum age
+        assertEquals(Arrays.asList("robot/1/status=online"), sent);
+        assertEquals(1, metrics.getMessagesLost());
+    }
+
+    @Test
+    public void drainingFreesLatestTopicsForNewOnes() {
+        for (int round = 0; round < 3; round++) {
+            sent.clear();
+            for (int id = 0; id < 1024; id++) {
+                offer(MqttChannel.STATUS, "robot/" + (round * 1024 + id) + "/status", "online", 0);
+            }
+            // One topic past the cap while offline
+            offer(MqttChannel.STATUS, "robot/overflow" + round + "/status", "online", 0);
+            buffer.drain(sender, 0);
+            assertEquals(1024, sent.size());
+        }
+        assertEquals(3, metrics.getMessagesLost());
+    }
+
+    @Test
+    public void payloadIsCopiedAndDefaultPolicyDrops() {
+        byte[] payload = "go".getBytes(StandardCharsets.UTF_8);
+        buffer.offer(MqttChannel.CONTROL, "robot/1/control", payload, 0);
+        payload[0] = 'n';
+        offer(MqttChannel.AI_MODE, "robot/1/ai_mode", "ON", 0);
+        buffer.drain(sender, 0);
+
+        assertEquals(Arrays.asList("robot/1/control=go"), sent);
+        assertEquals(1, metrics.getMessagesLost());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.myapplication.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TopicDispatcherTest {
+
+    private final TopicDispatcher dispatcher = new TopicDispatcher();
+    private final List<String> received = new ArrayList<>();
+
+    private MqttManager.MessageListener listener(String name) {
+        return (topic, payload, retained) -> received.add(name + " " + topic + (retained ? " retained" : ""));
+    }
+
+    private List<String> dispatch(String topic) {
+        received.clear();
+        dispatcher.dispatch(topic, new byte[0], false);
+        Collections.sort(received);
+        return new ArrayList<>(received);
+    }
+
+    @Test
+    public void exactFiltersMatchOnlyTheirTopic() {
+        dispatcher.add("robot/1/status", listener("a"));
+
+        assertEquals(Arrays.asList("a robot/1/status"), dispatch("robot/1/status"));
+        assertTrue(dispatch("robot/2/status").isEmpty());
+        assertTrue(dispatch("robot/1/status/extra").isEmpty());
+        assertTrue(dispatch("robot/1").isEmpty());
+    }
+
+    @Test
+    public void plusMatchesExactlyOneLevel() {
+        dispatcher.add("robot/+/status", listener("a"));
+
+        assertEquals(Arrays.asList("a robot/7/status"), dispatch("robot/7/status"));
+        assertEquals(Arrays.asList("a robot//status"), dispatch("robot//status"));
+        assertTrue(dispatch("robot/7/control").isEmpty());
+        assertTrue(dispatch("robot/7/status/x").isEmpty());
+        assertTrue(dispatch("robot/status").isEmpty());
+    }
+
+    @Test
+    public void hashMatchesTheParentAndEverythingBelow() {
+        dispatcher.add("robot/#", listener("a"));
+        dispatcher.add("#", listener("all"));
+
+        assertEquals(Arrays.asList("a robot", "all robot"), dispatch("robot"));
+        assertEquals(Arrays.asList("a robot/1/status", "all robot/1/status"), dispatch("robot/1/status"));
+        assertEquals(Arrays.asList("all fleet/metadata"), dispatch("fleet/metadata"));
+    }
+
+    @Test
+    public void everyMatchingFilterIsNotified() {
+        dispatcher.add("robot/1/status", listener("exact"));
+        dispatcher.add("robot/+/status", listener("plus"));
+        dispatcher.add("robot/1/#", listener("hash"));
+        dispatcher.add("robot/1/status", listener("second"));
+
+        assertEquals(Arrays.asList("exact robot/1/status", "hash robot/1/status",
+                "plus robot/1/status", "second robot/1/status"), dispatch("robot/1/status"));
+        assertEquals(Arrays.asList("plus robot/2/status"), dispatch("robot/2/status"));
+    }
+
+    @Test
+    public void retainFlagReachesTheListener() {
+        dispatcher.add("robot/+/status", listener("a"));
+        dispatcher.dispatch("robot/4/status", new byte[0], true);
+
+        assertEquals(Arrays.asList("a robot/4/status retained"), received);
+    }
+
+    @Test
+    public void addAndRemoveReportTheFirstAndLastListener() {
+        MqttManager.MessageListener a = listener("a");
+        MqttManager.MessageListener b = listener("b");
+
+        assertTrue(dispatcher.add("robot/+/status", a));
+        assertFalse(dispatcher.add("robot/+/status", b));
+
+        assertFalse(dispatcher.remove("robot/+/status", a));
+        assertEquals(Arrays.asList("b robot/3/status"), dispatch("robot/3/status"));
+        assertTrue(dispatcher.remove("robot/+/status", b));
+        assertTrue(dispatch("robot/3/status").isEmpty());
+
+        // Neither a filter nor a listener that was never added
+        assertFalse(dispatcher.remove("robot/+/status", a));
+        assertFalse(dispatcher.remove("robot/+/admin", a));
+    }
+
+    @Test
+    public void filtersListsWhatIsSubscribedAndPrunesRemovals() {
+        MqttManager.MessageListener a = listener("a");
+        dispatcher.add("robot/+/status", a);
+        dispatcher.add("robot/+/admin", a);
+        dispatcher.add("robot/1/control", a);
+        dispatcher.add("#", a);
+
+        List<String> filters = dispatcher.filters();
+        Collections.sort(filters);
+        assertEquals(Arrays.asList("#", "robot/+/admin", "robot/+/status", "robot/1/control"), filters);
+
+        dispatcher.remove("robot/+/status", a);
+        dispatcher.remove("robot/1/control", a);
+        dispatcher.remove("#", a);
+        assertEquals(Arrays.asList("robot/+/admin"), dispatcher.filters());
+    }
+}
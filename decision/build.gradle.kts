@@ -0,0 +1,26 @@
+// Pure-Java follow-mode decisions and the command protocol, testable and benchmarkable on any JVM
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
+
+// The benchmark replays the recorded sessions the tests use
+sourceSets.named("jmh") {
+    resources.srcDir("src/test/resources")
+}
+
+// ./gradlew :decision:jmh replays recorded sessions through the decision layer
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+}
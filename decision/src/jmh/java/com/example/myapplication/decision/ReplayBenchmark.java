@@ -0,0 +1,54 @@
+package com.example.myapplication.decision;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the decision layer over a recorded session, the same {@code replay/} fixtures the
+ * tests replay: a person followed until they walk off the left edge, then the stop.
+ * Run with {@code ./gradlew :decision:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReplayBenchmark {
+
+    @Param({"walk_off_left.csv"})
+    public String fixture;
+
+    @Param({"true", "false"})
+    public boolean binary;
+
+    private Recording recording;
+    private DecisionConfig config;
+
+    @Setup
+    public void setUp() throws IOException {
+        InputStream in = ReplayBenchmark.class.getResourceAsStream("/replay/" + fixture);
+        if (in == null) {
+            throw new IOException("missing replay " + fixture);
+        }
+        try (InputStreamReader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            recording = Recording.read(reader);
+        }
+        config = new DecisionConfig();
+    }
+
+    @Benchmark
+    public void replay(Blackhole blackhole) {
+        blackhole.consume(ReplayHarness.replay(recording, config, binary));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.myapplication.decision;
+
+import com.example.myapplication.protocol.CommandFrame;
+
+/**
+ * Where {@link FollowDecider} sends motion commands: the robot's MQTT channel in the app,
+ * a recording list in replays.
+ */
+public interface CommandSink {
+
+    // True if the robot understands CommandFrame.OP_DRIVE; otherwise only discrete commands are sent
+    boolean acceptsDrive();
+
+    // A discrete command, one of the CommandFrame.OP_* opcodes
+    void sendCommand(int opcode);
+
+    /**
+     * A continuous {@link CommandFrame#OP_DRIVE} command, per mille.
+     */
+    void sendDrive(int speed, int steering);
+}
@@ -0,0 +1,55 @@
+package com.example.myapplication.decision;
+
+/**
+ * Tuning of the follow behaviour. Defaults are what the app ships with; replays and
+ * benchmarks change fields on their own copy to try other values.
+ */
+public class DecisionConfig {
+
+    // Steering PID on the target's horizontal offset (-1..1); KI and KD are per second
+    public double steerKp = 1.2;
+    public double steerKi = 0.2;
+    public double steerKd = 0.1;
+
+    // Offsets below this count as centred, so the robot does not hunt around the middle
+    public double steerDeadband = 0.05;
+
+    // Box area / frame area at which the robot holds its distance
+    public double followAreaRatio = 0.12;
+    public double speedGain = 1.5;
+
+    // Largest change of speed or steering per second, in full scales
+    public double maxSlewPerSecond = 2.0;
+
+    // Detections in a row without a target before the robot is stopped outright
+    public int noPersonThreshold = 10;
+
+    // Skipped frames steer on the prediction only while the target was seen this recently
+    public long maxExtrapolationMs = 500;
+
+    // Motion output tick, independent of how often detection runs
+    public long controlTickMs = 100;
+
+    // A drive frame is re-sent after this long even if unchanged, so the robot's watchdog stays fed
+    public long driveKeepAliveMs = 500;
+
+    // Smaller changes (per mille) are not worth a publish before the keep-alive
+    public int drivePublishDelta = 20;
+
+    public DecisionConfig copy() {
+        DecisionConfig copy = new DecisionConfig();
+        copy.steerKp = steerKp;
+        copy.steerKi = steerKi;
+        copy.steerKd = steerKd;
+        copy.steerDeadband = steerDeadband;
+        copy.followAreaRatio = followAreaRatio;
+        copy.speedGain = speedGain;
+        copy.maxSlewPerSecond = maxSlewPerSecond;
+        copy.noPersonThreshold = noPersonThreshold;
+        copy.maxExtrapolationMs = maxExtrapolationMs;
+        copy.controlTickMs = controlTickMs;
+        copy.driveKeepAliveMs = driveKeepAliveMs;
+        copy.drivePublishDelta = drivePublishDelta;
+        return copy;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.myapplication.decision;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * Always-on flight recorder for the decision layer: every detection result and every
+ * command sent, in a memory-mapped ring file that keeps the newest records.
+ * <p>
+ * An append is a few stores into the mapped pages, with no system call and no
+ * allocation; the kernel writes the pages back on its own, and they survive a crash of
+ * the app. Read the file with {@link DecisionLogReader}.
+ * <p>
+ * Layout (big-endian): a header slot, then {@code slotCount} slots of {@link #SLOT_SIZE}
+ * bytes, record {@code n} in slot {@code n % slotCount}:
+ * <pre>
+ *  0..7    sequence   1, 2, ...; 0 while the slot is empty or being written
+ *  8..15   timeMs     caller's clock (uptime on the device)
+ *  16      type       RECORD_FRAME, RECORD_COMMAND or RECORD_SESSION
+ *  17      count      frame: detections that follow; command: opcode
+ *  18..19  width      frame width; command: speed
+ *  20..21  height     frame height; command: steering
+ *  22..23  reserved   0
+ *  24..    detections frame only, 14 bytes each, at most MAX_DETECTIONS:
+ *          left, top, right, bottom  signed 16-bit quarter pixels
+ *          trackingId                32-bit
+ *          score                     unsigned 16-bit, 0..65535 for 0..1
+ * </pre>
+ * The header slot holds {@link #MAGIC}, {@link #VERSION}, the slot size and slot count.
+ * <p>
+ * There is no label per detection: both detectors report only people, so every recorded
+ * box is a person.
+ */
+public class DecisionLog implements Closeable {
+
+    static final int MAGIC = 0x52484446; // "RHDF"
+    static final int VERSION = 1;
+
+    static final int SLOT_SIZE = 128;
+    static final int DETECTION_OFFSET = 24;
+    static final int DETECTION_SIZE = 14;
+    // People beyond this in one frame are not recorded
+    public static final int MAX_DETECTIONS = (SLOT_SIZE - DETECTION_OFFSET) / DETECTION_SIZE;
+
+    static final byte RECORD_FRAME = 1;
+    static final byte RECORD_COMMAND = 2;
+    static final byte RECORD_SESSION = 3;
+
+    // Box coordinates are kept in quarter pixels
+    static final float COORDINATE_SCALE = 4f;
+    static final float SCORE_SCALE = 65535f;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private long sequence;
+    private boolean closed = false;
+
+    private DecisionLog(RandomAccessFile file, MappedByteBuffer buffer, int slotCount, long lastSequence) {
+        this.file = file;
+        this.buffer = buffer;
+        this.slotCount = slotCount;
+        this.sequence = lastSequence;
+    }
+
+    /**
+     * Opens {@code path} for appending, continuing after its newest record. A missing file,
+     * or one with a different layout or slot count, is started afresh.
+     */
+    public static DecisionLog open(File path, int slotCount) throws IOException {
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("slotCount must be positive");
+        }
+        long size = (long) (slotCount + 1) * SLOT_SIZE;
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            boolean compatible = file.length() == size && readsHeader(file, slotCount);
+            if (!compatible) {
+                file.setLength(0);
+                file.setLength(size);
+            }
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            long last = 0;
+            if (compatible) {
+                for (int i = 0; i < slotCount; i++) {
+                    last = Math.max(last, buffer.getLong((i + 1) * SLOT_SIZE));
+                }
+            } else {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, SLOT_SIZE);
+                buffer.putInt(12, slotCount);
+            }
+            return new DecisionLog(file, buffer, slotCount, last);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static boolean readsHeader(RandomAccessFile file, int slotCount) throws IOException {
+        file.seek(0);
+        return file.readInt() == MAGIC && file.readInt() == VERSION
+                && file.readInt() == SLOT_SIZE && file.readInt() == slotCount;
+    }
+
+    // Marks the start of a follow session, so a reader can replay sessions separately
+    public synchronized void recordSessionStart(long timeMs) {
+        int slot = begin(timeMs, RECORD_SESSION);
+        if (slot >= 0) {
+            finish(slot);
+        }
+    }
+
+    // One detection result as handed to the decider, boxes in upright frame pixels
+    public synchronized void recordFrame(long timeMs, int width, int height, List<Detection> detections) {
+        int slot = begin(timeMs, RECORD_FRAME);
+        if (slot < 0) {
+            return;
+        }
+        int count = Math.min(detections.size(), MAX_DETECTIONS);
+        buffer.put(slot + 17, (byte) count);
+        buffer.putShort(slot + 18, (short) width);
+        buffer.putShort(slot + 20, (short) height);
+        int offset = slot + DETECTION_OFFSET;
+        for (int i = 0; i < count; i++) {
+            Detection d = detections.get(i);
+            buffer.putShort(offset, toFixed(d.left));
+            buffer.putShort(offset + 2, toFixed(d.top));
+            buffer.putShort(offset + 4, toFixed(d.right));
+            buffer.putShort(offset + 6, toFixed(d.bottom));
+            buffer.putInt(offset + 8, d.trackingId);
+            buffer.putShort(offset + 12, (short) Math.round(Math.max(0, Math.min(1, d.score)) * SCORE_SCALE));
+            offset += DETECTION_SIZE;
+        }
+        finish(slot);
+    }
+
+    // A command handed to the robot; speed and steering are 0 for discrete commands
+    public synchronized void recordCommand(long timeMs, int opcode, int speed, int steering) {
+        int slot = begin(timeMs, RECORD_COMMAND);
+        if (slot < 0) {
+            return;
+        }
+        buffer.put(slot + 17, (byte) opcode);
+        buffer.putShort(slot + 18, (short) speed);
+        buffer.putShort(slot + 20, (short) steering);
+        finish(slot);
+    }
+
+    // Claims the next slot; its sequence stays 0 until finish(), so a torn record is skipped
+    private int begin(long timeMs, byte type) {
+        if (closed) {
+            return -1;
+        }
+        sequence++;
+        int slot = (int) ((sequence - 1) % slotCount + 1) * SLOT_SIZE;
+        buffer.putLong(slot, 0);
+        buffer.putLong(slot + 8, timeMs);
+        buffer.put(slot + 16, type);
+        buffer.put(slot + 17, (byte) 0);
+        buffer.putInt(slot + 18, 0);
+        return slot;
+    }
+
+    private void finish(int slot) {
+        buffer.putLong(slot, sequence);
+    }
+
+    private static short toFixed(float pixels) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(pixels * COORDINATE_SCALE)));
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    // Sequence number of the newest record, 0 if there is none
+    public synchronized long getLastSequence() {
+        return sequence;
+    }
+
+    // Flushes the mapped pages to storage; appends after this are ignored
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.force();
+        file.close();
+    }
+}
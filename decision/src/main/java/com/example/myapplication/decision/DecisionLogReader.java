@@ -0,0 +1,149 @@
+package com.example.myapplication.decision;
+
+import com.example.myapplication.protocol.CommandFrame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a {@link DecisionLog} file back, oldest record first, as replayable
+ * {@link Recording}s and the command stream that was actually sent.
+ * <p>
+ * From the command line: {@code DecisionLogReader <log file> <output dir>} writes
+ * {@code session-N.csv} per follow session and {@code commands.csv}.
+ */
+public class DecisionLogReader {
+
+    private final List<Recording> sessions = new ArrayList<>();
+    private final List<ReplayHarness.CommandEvent> commands = new ArrayList<>();
+
+    public DecisionLogReader(File path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            if (file.length() < DecisionLog.SLOT_SIZE) {
+                throw new IOException(path + " is not a decision log");
+            }
+            ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            if (buffer.getInt(0) != DecisionLog.MAGIC || buffer.getInt(4) != DecisionLog.VERSION
+                    || buffer.getInt(8) != DecisionLog.SLOT_SIZE) {
+                throw new IOException(path + " is not a decision log");
+            }
+            int slotCount = buffer.getInt(12);
+            if ((long) (slotCount + 1) * DecisionLog.SLOT_SIZE > file.length()) {
+                throw new IOException(path + " is truncated");
+            }
+            parse(buffer, slotCount);
+        }
+    }
+
+    private void parse(ByteBuffer buffer, int slotCount) {
+        // The ring wraps, so slot order is not record order
+        List<long[]> written = new ArrayList<>();
+        for (int i = 0; i < slotCount; i++) {
+            int slot = (i + 1) * DecisionLog.SLOT_SIZE;
+            long sequence = buffer.getLong(slot);
+            if (sequence > 0) {
+                written.add(new long[]{sequence, slot});
+            }
+        }
+        Collections.sort(written, (a, b) -> Long.compare(a[0], b[0]));
+
+        Recording session = new Recording();
+        long lastFrameMs = Long.MIN_VALUE;
+        for (long[] entry : written) {
+            int slot = (int) entry[1];
+            long timeMs = buffer.getLong(slot + 8);
+            byte type = buffer.get(slot + 16);
+
+            // A new session, or a clock that went back (the phone rebooted)
+            boolean restarted = type == DecisionLog.RECORD_FRAME && timeMs < lastFrameMs;
+            if (type == DecisionLog.RECORD_SESSION || restarted) {
+                if (session.size() > 0) {
+                    sessions.add(session);
+                }
+                session = new Recording();
+                lastFrameMs = Long.MIN_VALUE;
+            }
+
+            if (type == DecisionLog.RECORD_FRAME) {
+                lastFrameMs = timeMs;
+                session.add(timeMs, buffer.getShort(slot + 18), buffer.getShort(slot + 20), readDetections(buffer, slot));
+            } else if (type == DecisionLog.RECORD_COMMAND) {
+                commands.add(new ReplayHarness.CommandEvent(timeMs, buffer.get(slot + 17),
+                        buffer.getShort(slot + 18), buffer.getShort(slot + 20)));
+            }
+        }
+        if (session.size() > 0) {
+            sessions.add(session);
+        }
+    }
+
+    private static List<Detection> readDetections(ByteBuffer buffer, int slot) {
+        int count = Math.min(buffer.get(slot + 17), DecisionLog.MAX_DETECTIONS);
+        List<Detection> detections = new ArrayList<>(count);
+        int offset = slot + DecisionLog.DETECTION_OFFSET;
+        for (int i = 0; i < count; i++) {
+            detections.add(new Detection(
+                    buffer.getShort(offset) / DecisionLog.COORDINATE_SCALE,
+                    buffer.getShort(offset + 2) / DecisionLog.COORDINATE_SCALE,
+                    buffer.getShort(offset + 4) / DecisionLog.COORDINATE_SCALE,
+                    buffer.getShort(offset + 6) / DecisionLog.COORDINATE_SCALE,
+                    buffer.getInt(offset + 8),
+                    (buffer.getShort(offset + 12) & 0xFFFF) / DecisionLog.SCORE_SCALE));
+            offset += DecisionLog.DETECTION_SIZE;
+        }
+        return detections;
+    }
+
+    // Detection results of each follow session still in the ring, oldest first
+    public List<Recording> getSessions() {
+        return Collections.unmodifiableList(sessions);
+    }
+
+    // Every command still in the ring, oldest first
+    public List<ReplayHarness.CommandEvent> getCommands() {
+        return Collections.unmodifiableList(commands);
+    }
+
+    public void writeCommandsCsv(Writer writer) throws IOException {
+        writer.write("# timeMs,command,speed,steering\n");
+        for (ReplayHarness.CommandEvent event : commands) {
+            writer.write(event.timeMs + "," + CommandFrame.nameOf(event.opcode) + ","
+                    + event.speed + "," + event.steering + "\n");
+        }
+        writer.flush();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: DecisionLogReader <log file> <output dir>");
+            System.exit(2);
+        }
+        DecisionLogReader reader = new DecisionLogReader(new File(args[0]));
+        File dir = new File(args[1]);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+
+        for (int i = 0; i < reader.sessions.size(); i++) {
+            try (Writer out = new OutputStreamWriter(
+                    new FileOutputStream(new File(dir, "session-" + (i + 1) + ".csv")), StandardCharsets.UTF_8)) {
+                reader.sessions.get(i).write(out);
+            }
+        }
+        try (Writer out = new OutputStreamWriter(
+                new FileOutputStream(new File(dir, "commands.csv")), StandardCharsets.UTF_8)) {
+            reader.writeCommandsCsv(out);
+        }
+        System.out.println(reader.sessions.size() + " sessions, " + reader.commands.size() + " commands");
+    }
+}
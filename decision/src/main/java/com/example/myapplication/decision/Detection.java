@@ -0,0 +1,66 @@
+package com.example.myapplication.decision;
+
+/**
+ * One detected person in upright full-frame pixel coordinates, independent of the
+ * detector that produced it.
+ */
+public final class Detection {
+
+    public static final int NO_TRACKING_ID = -1;
+
+    public final float left;
+    public final float top;
+    public final float right;
+    public final float bottom;
+
+    // Detector-provided identity across frames, or NO_TRACKING_ID
+    public final int trackingId;
+    public final float score;
+
+    public Detection(float left, float top, float right, float bottom, int trackingId, float score) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+        this.trackingId = trackingId;
+        this.score = score;
+    }
+
+    public float width() {
+        return right - left;
+    }
+
+    public float height() {
+        return bottom - top;
+    }
+
+    public float centerX() {
+        return (left + right) / 2;
+    }
+
+    public float centerY() {
+        return (top + bottom) / 2;
+    }
+
+    public float area() {
+        return Math.max(0, width()) * Math.max(0, height());
+    }
+
+    // Intersection over union with a box given by its edges
+    public float iou(float l, float t, float r, float b) {
+        float iw = Math.min(right, r) - Math.max(left, l);
+        float ih = Math.min(bottom, b) - Math.max(top, t);
+        if (iw <= 0 || ih <= 0) {
+            return 0;
+        }
+        float intersection = iw * ih;
+        float union = area() + (r - l) * (b - t) - intersection;
+        return union > 0 ? intersection / union : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Detection[%.0f,%.0f %.0fx%.0f id=%d score=%.2f]",
+                left, top, width(), height(), trackingId, score);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.myapplication.decision;
+
+import com.example.myapplication.protocol.CommandFrame;
+
+import java.util.List;
+
+/**
+ * The follow-mode decision layer: detections in, motion commands out.
+ * <p>
+ * {@link #onDetections} and {@link #onSkippedFrame} feed the tracker and the steering
+ * controller; {@link #onTick} is called on a fixed period of
+ * {@link DecisionConfig#controlTickMs} and is the only place commands are published,
+ * apart from the hard stop when the person has been gone for
+ * {@link DecisionConfig#noPersonThreshold} detections.
+ * <p>
+ * Times are in milliseconds on any monotonic clock. Not thread-safe: call everything
+ * from one thread.
+ */
+public class FollowDecider {
+
+    private final DecisionConfig config;
+    private final CommandSink sink;
+
+    private final PersonTracker tracker = new PersonTracker();
+    private final SteeringController steering;
+
+    private int lastCommand = -1;
+    private int noPersonFrames = 0;
+
+    private long lastTickMs;
+    private long lastDrivePublishMs;
+    private int lastSpeed;
+    private int lastSteering;
+
+    public FollowDecider(DecisionConfig config, CommandSink sink) {
+        this.config = config;
+        this.sink = sink;
+        this.steering = SteeringController.fromConfig(config);
+    }
+
+    // Starts a new follow session; the first tick measures from here
+    public void start(long nowMs) {
+        noPersonFrames = 0;
+        lastTickMs = nowMs;
+    }
+
+    /**
+     * Applies one detection result.
+     *
+     * @param frameTimeMs when the frame was taken, not when detection finished
+     * @return the followed person, or null when there is none
+     */
+    public PersonTracker.Track onDetections(List<Detection> people, int frameWidth, int frameHeight, long frameTimeMs) {
+        // A briefly missed target is still returned here, coasting on its prediction
+        PersonTracker.Track target = tracker.update(people, frameTimeMs);
+
+        if (target == null) {
+            steering.clearMeasurement();
+            noPersonFrames++;
+
+            if (noPersonFrames >= config.noPersonThreshold && lastCommand != CommandFrame.OP_STOP) {
+                steering.reset();
+                sink.sendCommand(CommandFrame.OP_STOP);
+                lastCommand = CommandFrame.OP_STOP;
+            }
+            return null;
+        }
+
+        noPersonFrames = 0;
+        steerTowards(target.centerX(), target, frameWidth, frameHeight);
+        return target;
+    }
+
+    /**
+     * A frame that was not sent to the detector: steers towards where the target should be
+     * by now, as long as it was seen recently enough for the prediction to hold.
+     */
+    public void onSkippedFrame(int frameWidth, int frameHeight, long nowMs) {
+        PersonTracker.Track target = tracker.getTarget();
+        if (target == null || nowMs - target.getSeenAtMs() > config.maxExtrapolationMs) {
+            return;
+        }
+        steerTowards(tracker.predictTargetX(nowMs), target, frameWidth, frameHeight);
+    }
+
+    // Feeds the controller; nothing is published here, that is the tick's job
+    private void steerTowards(float centerX, PersonTracker.Track target, int frameWidth, int frameHeight) {
+        float halfWidth = frameWidth / 2f;
+        // A target left of centre in the front camera means turning right
+        double offset = (halfWidth - centerX) / halfWidth;
+        double areaRatio = (double) (target.getWidth() * target.getHeight()) / (frameWidth * frameHeight);
+        steering.setMeasurement(Math.max(-1, Math.min(1, offset)), areaRatio);
+    }
+
+    /**
+     * Advances the controller and publishes: a drive frame when the output moved by
+     * {@link DecisionConfig#drivePublishDelta} or the keep-alive is due, or a discrete
+     * command when it changed, for robots without {@link CommandFrame#OP_DRIVE}.
+     */
+    public void onTick(long nowMs) {
+        steering.update(nowMs - lastTickMs);
+        lastTickMs = nowMs;
+
+        if (lastCommand == CommandFrame.OP_STOP && steering.isIdle()) {
+            // Stopped and nobody to follow: stay quiet
+            return;
+        }
+
+        if (sink.acceptsDrive()) {
+            int speed = steering.getSpeed();
+            int steer = steering.getSteering();
+            boolean changed = Math.abs(speed - lastSpeed) >= config.drivePublishDelta
+                    || Math.abs(steer - lastSteering) >= config.drivePublishDelta;
+            if (changed || lastCommand != CommandFrame.OP_DRIVE
+                    || nowMs - lastDrivePublishMs >= config.driveKeepAliveMs) {
+                sink.sendDrive(speed, steer);
+                lastCommand = CommandFrame.OP_DRIVE;
+                lastSpeed = speed;
+                lastSteering = steer;
+                lastDrivePublishMs = nowMs;
+            }
+        } else {
+            // The controller adds hysteresis, so this does not flap at the thresholds
+            int cmd = steering.discreteCommand();
+            if (cmd != lastCommand) {
+                sink.sendCommand(cmd);
+                lastCommand = cmd;
+            }
+        }
+    }
+
+    // Ends the session: the robot is stopped unless it already is, and all tracking is dropped
+    public void stop() {
+        steering.reset();
+        if (lastCommand != CommandFrame.OP_STOP) {
+            sink.sendCommand(CommandFrame.OP_STOP);
+            lastCommand = CommandFrame.OP_STOP;
+        }
+        tracker.reset();
+        noPersonFrames = 0;
+    }
+
+    public PersonTracker getTracker() {
+        return tracker;
+    }
+
+    public SteeringController getSteering() {
+        return steering;
+    }
+
+    public DecisionConfig getConfig() {
+        return config;
+    }
+
+    // Last opcode published, or -1 before the first
+    public int getLastCommand() {
+        return lastCommand;
+    }
+
+    public int getNoPersonFrames() {
+        return noPersonFrames;
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.myapplication.decision;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps identities of the people in view across detections and locks onto one of them.
+ * <p>
+ * Each detection is associated with an existing track first by the detector's tracking
+ * ID, then greedily by IoU against the track's predicted box. The box centre of every
+ * track is smoothed by a constant-velocity Kalman filter per axis, so the target position
+ * can be predicted for frames that are not detected. The locked target is kept until its
+ * track has gone unseen for too long; a new track close to where the target was heading
+ * is then re-acquired as the same target. Only when that window has passed does the lock
+ * move to the largest confirmed track.
+ * <p>
+ * Times are in milliseconds, positions in upright pixels. Not thread-safe.
+ */
+public class PersonTracker {
+
+    private static final float MIN_IOU = 0.3f;
+
+    // A track needs this many hits before it can become the target
+    private static final int CONFIRM_HITS = 2;
+
+    // Unmatched tracks are coasted on their prediction for this long, then dropped
+    private static final long MAX_COAST_MS = 700;
+
+    // A lost target may be re-acquired within this time near its predicted position
+    private static final long REACQUIRE_MS = 1_500;
+
+    // Kalman tuning: acceleration noise (px/ms^2) and measurement noise (px)
+    private static final double ACCEL_NOISE = 1e-3;
+    private static final double MEASUREMENT_NOISE = 8;
+
+    // Box size smoothing weight for the newest measurement
+    private static final float SIZE_ALPHA = 0.3f;
+
+    /** Constant-velocity Kalman filter on one axis: state (position, velocity). */
+    static final class KalmanAxis {
+        double position;
+        double velocity;
+        private double p00 = 100, p01 = 0, p10 = 0, p11 = 1;
+
+        KalmanAxis(double position) {
+            this.position = position;
+        }
+
+        void predict(double dt) {
+            if (dt <= 0) {
+                return;
+            }
+            position += velocity * dt;
+
+            // P = F P F' + Q, F = [1 dt; 0 1], Q from white acceleration noise
+            double q = ACCEL_NOISE * ACCEL_NOISE;
+            double dt2 = dt * dt;
+            double n00 = p00 + dt * (p10 + p01) + dt2 * p11 + q * dt2 * dt2 / 4;
+            double n01 = p01 + dt * p11 + q * dt2 * dt / 2;
+            double n10 = p10 + dt * p11 + q * dt2 * dt / 2;
+            double n11 = p11 + q * dt2;
+            p00 = n00;
+            p01 = n01;
+            p10 = n10;
+            p11 = n11;
+        }
+
+        void update(double measurement) {
+            double r = MEASUREMENT_NOISE * MEASUREMENT_NOISE;
+            double innovation = measurement - position;
+            double s = p00 + r;
+            double k0 = p00 / s;
+            double k1 = p10 / s;
+            position += k0 * innovation;
+            velocity += k1 * innovation;
+
+            double n00 = (1 - k0) * p00;
+            double n01 = (1 - k0) * p01;
+            double n10 = p10 - k1 * p00;
+            double n11 = p11 - k1 * p01;
+            p00 = n00;
+            p01 = n01;
+            p10 = n10;
+            p11 = n11;
+        }
+
+        double positionAt(double dt) {
+            return position + velocity * Math.max(0, dt);
+        }
+    }
+
+    /** One person followed over time. */
+    public static final class Track {
+        int id;
+        int trackingId;
+        final KalmanAxis x;
+        final KalmanAxis y;
+        float width;
+        float height;
+        long updatedAtMs;
+        long seenAtMs;
+        int hits = 1;
+
+        Track(int id, Detection d, long timeMs) {
+            this.id = id;
+            this.trackingId = d.trackingId;
+            this.x = new KalmanAxis(d.centerX());
+            this.y = new KalmanAxis(d.centerY());
+            this.width = d.width();
+            this.height = d.height();
+            this.updatedAtMs = timeMs;
+            this.seenAtMs = timeMs;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public float centerX() {
+            return (float) x.position;
+        }
+
+        public float centerY() {
+            return (float) y.position;
+        }
+
+        public float getWidth() {
+            return width;
+        }
+
+        public float getHeight() {
+            return height;
+        }
+
+        // Pixels per millisecond
+        public float velocityX() {
+            return (float) x.velocity;
+        }
+
+        public long getSeenAtMs() {
+            return seenAtMs;
+        }
+
+        float left() {
+            return centerX() - width / 2;
+        }
+
+        float top() {
+            return centerY() - height / 2;
+        }
+
+        float right() {
+            return centerX() + width / 2;
+        }
+
+        float bottom() {
+            return centerY() + height / 2;
+        }
+
+        boolean confirmed() {
+            return hits >= CONFIRM_HITS;
+        }
+    }
+
+    private final List<Track> tracks = new ArrayList<>();
+    private int nextTrackId = 1;
+
+    private Track target;
+    // Where the target was when it was lost, for re-acquisition
+    private Track lostTarget;
+    private long lostAtMs;
+
+    private int targetSwitches = 0;
+
+    /**
+     * Folds one frame's detections into the tracks and updates the target lock.
+     *
+     * @return the current target, or null if nobody is being followed
+     */
+    public Track update(List<Detection> detections, long timeMs) {
+        for (Track track : tracks) {
+            double dt = timeMs - track.updatedAtMs;
+            track.x.predict(dt);
+            track.y.predict(dt);
+            track.updatedAtMs = timeMs;
+        }
+
+        boolean[] used = new boolean[detections.size()];
+        List<Track> unmatched = new ArrayList<>(tracks);
+
+        // 1. Same detector tracking ID
+        for (Iterator<Track> it = unmatched.iterator(); it.hasNext(); ) {
+            Track track = it.next();
+            if (track.trackingId == Detection.NO_TRACKING_ID) {
+                continue;
+            }
+            for (int i = 0; i < detections.size(); i++) {
+                if (!used[i] && detections.get(i).trackingId == track.trackingId) {
+                    correct(track, detections.get(i), timeMs);
+                    used[i] = true;
+                    it.remove();
+                    break;
+                }
+            }
+        }
+
+        // 2. Greedy best-IoU pairs against predicted boxes
+        while (!unmatched.isEmpty()) {
+            float bestIou = MIN_IOU;
+            Track bestTrack = null;
+            int bestDetection = -1;
+            for (Track track : unmatched) {
+                for (int i = 0; i < detections.size(); i++) {
+                    if (used[i]) {
+                        continue;
+                    }
+                    float iou = detections.get(i).iou(track.left(), track.top(), track.right(), track.bottom());
+                    if (iou > bestIou) {
+                        bestIou = iou;
+                        bestTrack = track;
+                        bestDetection = i;
+                    }
+                }
+            }
+            if (bestTrack == null) {
+                break;
+            }
+            correct(bestTrack, detections.get(bestDetection), timeMs);
+            used[bestDetection] = true;
+            unmatched.remove(bestTrack);
+        }
+
+        // 3. Leftover detections start new tracks
+        for (int i = 0; i < detections.size(); i++) {
+            if (!used[i]) {
+                tracks.add(new Track(nextTrackId++, detections.get(i), timeMs));
+            }
+        }
+
+        // Coasting tracks expire
+        for (Iterator<Track> it = tracks.iterator(); it.hasNext(); ) {
+            Track track = it.next();
+            if (timeMs - track.seenAtMs > MAX_COAST_MS) {
+                if (track == target) {
+                    lostTarget = track;
+                    lostAtMs = timeMs;
+                    target = null;
+                }
+                it.remove();
+            }
+        }
+
+        if (target == null) {
+            acquireTarget(timeMs);
+        }
+        return target;
+    }
+
+    public Track getTarget() {
+        return target;
+    }
+
+    /**
+     * Predicted target centre X at {@code timeMs} without changing any state, for frames
+     * that are not sent to the detector; NaN if there is no target.
+     */
+    public float predictTargetX(long timeMs) {
+        if (target == null) {
+            return Float.NaN;
+        }
+        return (float) target.x.positionAt(timeMs - target.updatedAtMs);
+    }
+
+    public float predictTargetY(long timeMs) {
+        if (target == null) {
+            return Float.NaN;
+        }
+        return (float) target.y.positionAt(timeMs - target.updatedAtMs);
+    }
+
+    public int getTrackCount() {
+        return tracks.size();
+    }
+
+    // How often the lock moved to a different person; the number smoothing should keep low
+    public int getTargetSwitches() {
+        return targetSwitches;
+    }
+
+    public void reset() {
+        tracks.clear();
+        target = null;
+        lostTarget = null;
+    }
+
+    private void correct(Track track, Detection d, long timeMs) {
+        track.x.update(d.centerX());
+        track.y.update(d.centerY());
+        track.width += SIZE_ALPHA * (d.width() - track.width);
+        track.height += SIZE_ALPHA * (d.height() - track.height);
+        if (d.trackingId != Detection.NO_TRACKING_ID) {
+            track.trackingId = d.trackingId;
+        }
+        track.seenAtMs = timeMs;
+        track.hits++;
+    }
+
+    private void acquireTarget(long timeMs) {
+        Track best = null;
+
+        // Re-acquire: a confirmed track where the lost target should be by now. Until the
+        // window closes nobody else is locked, so a brief occlusion does not swap people.
+        boolean reacquiring = lostTarget != null && timeMs - lostAtMs <= REACQUIRE_MS;
+        if (reacquiring) {
+            double dt = timeMs - lostTarget.updatedAtMs;
+            double expectedX = lostTarget.x.positionAt(dt);
+            double expectedY = lostTarget.y.positionAt(dt);
+            double bestDistance = Math.max(lostTarget.width, lostTarget.height);
+            for (Track track : tracks) {
+                if (!track.confirmed()) {
+                    continue;
+                }
+                double distance = Math.hypot(track.centerX() - expectedX, track.centerY() - expectedY);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = track;
+                }
+            }
+        }
+
+        // Otherwise the largest confirmed track, i.e. the closest person
+        if (best == null && !reacquiring) {
+            float bestArea = 0;
+            for (Track track : tracks) {
+                float area = track.width * track.height;
+                if (track.confirmed() && area > bestArea) {
+                    bestArea = area;
+                    best = track;
+                }
+            }
+            if (best != null && lostTarget != null) {
+                targetSwitches++;
+            }
+        }
+
+        if (best != null) {
+            if (reacquiring) {
+                // Same person, so the same identity
+                best.id = lostTarget.id;
+            }
+            target = best;
+            lostTarget = null;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.myapplication.decision;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A sequence of detection results, as the decision layer saw them, for replaying through
+ * {@link ReplayHarness}.
+ * <p>
+ * CSV, one line per detection result:
+ * <pre>
+ * timeMs,width,height[,left,top,right,bottom,trackingId,score]...
+ * </pre>
+ * followed by six values per detected person, none for a frame without anyone. Boxes are
+ * in upright frame pixels. Blank lines and lines starting with {@code #} are ignored.
+ */
+public class Recording {
+
+    public static final class Frame {
+        public final long timeMs;
+        public final int width;
+        public final int height;
+        public final List<Detection> detections;
+
+        public Frame(long timeMs, int width, int height, List<Detection> detections) {
+            this.timeMs = timeMs;
+            this.width = width;
+            this.height = height;
+            this.detections = Collections.unmodifiableList(new ArrayList<>(detections));
+        }
+    }
+
+    private static final int FIELDS_PER_DETECTION = 6;
+
+    private final List<Frame> frames = new ArrayList<>();
+
+    // Frames must be added in time order
+    public void add(long timeMs, int width, int height, List<Detection> detections) {
+        if (!frames.isEmpty() && timeMs < frames.get(frames.size() - 1).timeMs) {
+            throw new IllegalArgumentException("Frame at " + timeMs + " ms is out of order");
+        }
+        frames.add(new Frame(timeMs, width, height, detections));
+    }
+
+    public List<Frame> getFrames() {
+        return Collections.unmodifiableList(frames);
+    }
+
+    public int size() {
+        return frames.size();
+    }
+
+    // Time from the first to the last frame
+    public long getDurationMs() {
+        return frames.isEmpty() ? 0 : frames.get(frames.size() - 1).timeMs - frames.get(0).timeMs;
+    }
+
+    public static Recording read(Reader reader) throws IOException {
+        Recording recording = new Recording();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            if (fields.length < 3 || (fields.length - 3) % FIELDS_PER_DETECTION != 0) {
+                throw new IOException("Line " + lineNumber + ": expected 3 + 6n fields, got " + fields.length);
+            }
+            try {
+                long timeMs = Long.parseLong(fields[0].trim());
+                int width = Integer.parseInt(fields[1].trim());
+                int height = Integer.parseInt(fields[2].trim());
+                List<Detection> detections = new ArrayList<>();
+                for (int i = 3; i < fields.length; i += FIELDS_PER_DETECTION) {
+                    detections.add(new Detection(
+                            Float.parseFloat(fields[i].trim()),
+                            Float.parseFloat(fields[i + 1].trim()),
+                            Float.parseFloat(fields[i + 2].trim()),
+                            Float.parseFloat(fields[i + 3].trim()),
+                            Integer.parseInt(fields[i + 4].trim()),
+                            Float.parseFloat(fields[i + 5].trim())));
+                }
+                recording.add(timeMs, width, height, detections);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return recording;
+    }
+
+    public void write(Writer writer) throws IOException {
+        writer.write("# timeMs,width,height[,left,top,right,bottom,trackingId,score]...\n");
+        StringBuilder line = new StringBuilder();
+        for (Frame frame : frames) {
+            line.setLength(0);
+            line.append(frame.timeMs).append(',').append(frame.width).append(',').append(frame.height);
+            for (Detection d : frame.detections) {
+                line.append(',').append(format(d.left))
+                        .append(',').append(format(d.top))
+                        .append(',').append(format(d.right))
+                        .append(',').append(format(d.bottom))
+                        .append(',').append(d.trackingId)
+                        .append(',').append(format(d.score));
+            }
+            line.append('\n');
+            writer.write(line.toString());
+        }
+        writer.flush();
+    }
+
+    private static String format(float value) {
+        // Locale.ROOT: a decimal comma would split the field
+        return value == Math.rint(value)
+                ? Long.toString((long) value)
+                : String.format(Locale.ROOT, "%.3f", value);
+    }
+}
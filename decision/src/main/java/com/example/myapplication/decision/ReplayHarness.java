@@ -0,0 +1,105 @@
+package com.example.myapplication.decision;
+
+import com.example.myapplication.protocol.CommandFrame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds a {@link Recording} through a {@link FollowDecider} on simulated time and
+ * collects the commands it publishes, so thresholds can be tuned without a robot.
+ * <p>
+ * The control tick runs every {@link DecisionConfig#controlTickMs} from the first frame
+ * on, interleaved with the recorded detections in time order, as on the device.
+ */
+public final class ReplayHarness {
+
+    public static final class CommandEvent {
+        public final long timeMs;
+        public final int opcode;
+        // Per mille; 0 for discrete commands
+        public final int speed;
+        public final int steering;
+
+        CommandEvent(long timeMs, int opcode, int speed, int steering) {
+            this.timeMs = timeMs;
+            this.opcode = opcode;
+            this.speed = speed;
+            this.steering = steering;
+        }
+
+        @Override
+        public String toString() {
+            return timeMs + "ms " + CommandFrame.nameOf(opcode)
+                    + (opcode == CommandFrame.OP_DRIVE ? " " + speed + "/" + steering : "");
+        }
+    }
+
+    private static final class RecordingSink implements CommandSink {
+        private final boolean binary;
+        private final List<CommandEvent> events = new ArrayList<>();
+        private long nowMs;
+
+        RecordingSink(boolean binary) {
+            this.binary = binary;
+        }
+
+        @Override
+        public boolean acceptsDrive() {
+            return binary;
+        }
+
+        @Override
+        public void sendCommand(int opcode) {
+            events.add(new CommandEvent(nowMs, opcode, 0, 0));
+        }
+
+        @Override
+        public void sendDrive(int speed, int steering) {
+            events.add(new CommandEvent(nowMs, CommandFrame.OP_DRIVE, speed, steering));
+        }
+    }
+
+    private ReplayHarness() {
+    }
+
+    public static List<CommandEvent> replay(Recording recording, DecisionConfig config, boolean binary) {
+        return replay(recording, config, binary, 0);
+    }
+
+    /**
+     * @param binary  whether the simulated robot takes drive frames or only discrete commands
+     * @param tailMs  how long to keep ticking after the last frame
+     * @return every command published, in order
+     */
+    public static List<CommandEvent> replay(Recording recording, DecisionConfig config, boolean binary, long tailMs) {
+        RecordingSink sink = new RecordingSink(binary);
+        List<Recording.Frame> frames = recording.getFrames();
+        if (frames.isEmpty()) {
+            return sink.events;
+        }
+
+        FollowDecider decider = new FollowDecider(config, sink);
+        long start = frames.get(0).timeMs;
+        decider.start(start);
+        long nextTick = start + config.controlTickMs;
+
+        for (Recording.Frame frame : frames) {
+            while (nextTick <= frame.timeMs) {
+                sink.nowMs = nextTick;
+                decider.onTick(nextTick);
+                nextTick += config.controlTickMs;
+            }
+            sink.nowMs = frame.timeMs;
+            decider.onDetections(frame.detections, frame.width, frame.height, frame.timeMs);
+        }
+
+        long end = frames.get(frames.size() - 1).timeMs + tailMs;
+        while (nextTick <= end) {
+            sink.nowMs = nextTick;
+            decider.onTick(nextTick);
+            nextTick += config.controlTickMs;
+        }
+        return sink.events;
+    }
+}
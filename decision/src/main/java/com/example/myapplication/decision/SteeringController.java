@@ -0,0 +1,178 @@
+package com.example.myapplication.decision;
+
+import com.example.myapplication.protocol.CommandFrame;
+
+/**
+ * Turns the tracked target into continuous motion: a PID loop on the horizontal offset
+ * gives steering, and the target's share of the frame gives a follow-distance speed.
+ * Both outputs are slew-rate limited, so the robot eases into turns instead of snapping
+ * between full left and full right.
+ * <p>
+ * Inputs are normalised: {@code offset} is -1 (target at the left edge) .. 1 (right edge)
+ * in the sense the robot should steer, and {@code areaRatio} is box area / frame area.
+ * Outputs are per mille, as carried by {@link CommandFrame}.
+ * <p>
+ * Not thread-safe: call {@link #setMeasurement} and {@link #update} from one thread.
+ */
+public class SteeringController {
+
+    // Integral term is clamped to this share of full steering, against wind-up
+    private static final double MAX_INTEGRAL_SHARE = 0.3;
+
+    // Speed is scaled down by up to this much during a full-lock turn
+    private static final double TURN_SLOWDOWN = 0.5;
+
+    // Hysteresis for the discrete fallback, as fractions of full scale
+    private static final double TURN_ENTER = 0.4;
+    private static final double TURN_EXIT = 0.2;
+    private static final double MOVE_ENTER = 0.15;
+    private static final double MOVE_EXIT = 0.05;
+
+    private final double kp;
+    private final double ki;
+    private final double kd;
+    private final double speedGain;
+    private final double followAreaRatio;
+    private final double deadband;
+    private final double maxSlewPerSecond;
+
+    private boolean hasMeasurement = false;
+    private double offset;
+    private double areaRatio;
+
+    private double integral = 0;
+    private double previousError;
+    private boolean hasPreviousError = false;
+
+    // Current outputs, -1..1
+    private double steering = 0;
+    private double speed = 0;
+
+    private int discrete = CommandFrame.OP_STOP;
+
+    /**
+     * @param kp                proportional steering gain on the offset
+     * @param ki                integral gain, per second
+     * @param kd                derivative gain, per second
+     * @param speedGain         speed per unit of relative area error
+     * @param followAreaRatio   box area / frame area at which the robot holds its distance
+     * @param deadband          offsets smaller than this count as centred
+     * @param maxSlewPerSecond  largest change of either output per second, in full scales
+     */
+    public SteeringController(double kp, double ki, double kd, double speedGain,
+                              double followAreaRatio, double deadband, double maxSlewPerSecond) {
+        if (followAreaRatio <= 0 || followAreaRatio >= 1 || maxSlewPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid steering parameters");
+        }
+        this.kp = kp;
+        this.ki = ki;
+        this.kd = kd;
+        this.speedGain = speedGain;
+        this.followAreaRatio = followAreaRatio;
+        this.deadband = deadband;
+        this.maxSlewPerSecond = maxSlewPerSecond;
+    }
+
+    // Controller with the tuning from a DecisionConfig
+    public static SteeringController fromConfig(DecisionConfig config) {
+        return new SteeringController(config.steerKp, config.steerKi, config.steerKd,
+                config.speedGain, config.followAreaRatio, config.steerDeadband,
+                config.maxSlewPerSecond);
+    }
+
+    public void setMeasurement(double offset, double areaRatio) {
+        this.hasMeasurement = true;
+        this.offset = offset;
+        this.areaRatio = areaRatio;
+    }
+
+    // No target: outputs ease back to zero on the following updates
+    public void clearMeasurement() {
+        hasMeasurement = false;
+        integral = 0;
+        hasPreviousError = false;
+    }
+
+    /**
+     * Advances the controller by {@code dtMs} and moves the outputs towards the new
+     * set-points, no faster than the slew limit allows.
+     */
+    public void update(long dtMs) {
+        if (dtMs <= 0) {
+            return;
+        }
+        double dt = dtMs / 1000.0;
+
+        double steeringTarget = 0;
+        double speedTarget = 0;
+        if (hasMeasurement) {
+            double error = Math.abs(offset) < deadband ? 0 : offset;
+
+            if (ki > 0) {
+                double limit = MAX_INTEGRAL_SHARE / ki;
+                integral = clamp(integral + error * dt, -limit, limit);
+            }
+            double derivative = hasPreviousError ? (error - previousError) / dt : 0;
+            previousError = error;
+            hasPreviousError = true;
+
+            steeringTarget = clamp(kp * error + ki * integral + kd * derivative, -1, 1);
+
+            // Closer than the follow distance means a bigger box: stop rather than reverse
+            double areaError = (followAreaRatio - areaRatio) / followAreaRatio;
+            speedTarget = clamp(speedGain * areaError, 0, 1);
+            speedTarget *= 1 - TURN_SLOWDOWN * Math.abs(steeringTarget);
+        }
+
+        double maxStep = maxSlewPerSecond * dt;
+        steering += clamp(steeringTarget - steering, -maxStep, maxStep);
+        speed += clamp(speedTarget - speed, -maxStep, maxStep);
+    }
+
+    // Drops all state and zeroes the outputs at once, for a hard stop
+    public void reset() {
+        clearMeasurement();
+        steering = 0;
+        speed = 0;
+        discrete = CommandFrame.OP_STOP;
+    }
+
+    public int getSpeed() {
+        return (int) Math.round(speed * CommandFrame.MAX_VALUE);
+    }
+
+    public int getSteering() {
+        return (int) Math.round(steering * CommandFrame.MAX_VALUE);
+    }
+
+    // Nothing to follow and nothing left to ease out
+    public boolean isIdle() {
+        return !hasMeasurement && getSpeed() == 0 && getSteering() == 0;
+    }
+
+    /**
+     * The outputs reduced to FORWARD, LEFT, RIGHT or STOP for firmware without
+     * {@link CommandFrame#OP_DRIVE}. Entering a state takes a larger output than staying
+     * in it, so values near a boundary do not flip the command every tick.
+     */
+    public int discreteCommand() {
+        boolean turning = discrete == CommandFrame.OP_LEFT || discrete == CommandFrame.OP_RIGHT;
+        double turnThreshold = turning ? TURN_EXIT : TURN_ENTER;
+        double moveThreshold = discrete == CommandFrame.OP_STOP ? MOVE_ENTER : MOVE_EXIT;
+
+        if (steering > turnThreshold) {
+            discrete = CommandFrame.OP_RIGHT;
+        } else if (steering < -turnThreshold) {
+            discrete = CommandFrame.OP_LEFT;
+        } else if (speed > moveThreshold) {
+            discrete = CommandFrame.OP_FORWARD;
+        } else {
+            discrete = CommandFrame.OP_STOP;
+        }
+        return discrete;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
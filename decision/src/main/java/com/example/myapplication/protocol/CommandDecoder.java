@@ -0,0 +1,72 @@
+package com.example.myapplication.protocol;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads either a binary {@link CommandFrame} or a legacy text command into a reusable
+ * {@link Command}. Plain Java so the robot side can share it.
+ */
+public class CommandDecoder {
+
+    public static class Command {
+        public int opcode;
+        public int speed;
+        public int steering;
+        public int sequence;      // -1 for text commands
+        public long timestampMs;  // low 32 bits of the sender clock, 0 for text commands
+        public boolean binary;
+    }
+
+    private int lastSequence = -1;
+
+    /**
+     * Decodes {@code payload} into {@code out}.
+     *
+     * @return false if the payload is neither a valid frame nor a known text command
+     */
+    public boolean decode(byte[] payload, int length, Command out) {
+        if (CommandFrame.isBinary(payload, length)) {
+            out.binary = true;
+            out.opcode = payload[1];
+            out.speed = CommandFrame.getShort(payload, 2);
+            out.steering = CommandFrame.getShort(payload, 4);
+            out.sequence = CommandFrame.getUnsignedShort(payload, 6);
+            out.timestampMs = ((long) (payload[8] & 0xFF) << 24)
+                    | ((payload[9] & 0xFF) << 16)
+                    | ((payload[10] & 0xFF) << 8)
+                    | (payload[11] & 0xFF);
+            return true;
+        }
+
+        int opcode = CommandFrame.opcodeOf(new String(payload, 0, length, StandardCharsets.US_ASCII).trim());
+        if (opcode < 0) {
+            return false;
+        }
+        out.binary = false;
+        out.opcode = opcode;
+        out.speed = 0;
+        out.steering = 0;
+        out.sequence = -1;
+        out.timestampMs = 0;
+        return true;
+    }
+
+    /**
+     * True if {@code command} is older than the last fresh one seen, i.e. it arrived
+     * out of order and should be ignored. Text commands are never considered stale.
+     */
+    public boolean isStale(Command command) {
+        if (!command.binary) {
+            return false;
+        }
+        if (lastSequence >= 0) {
+            // Serial number arithmetic over 16 bits
+            int delta = (command.sequence - lastSequence) & 0xFFFF;
+            if (delta == 0 || delta >= 0x8000) {
+                return true;
+            }
+        }
+        lastSequence = command.sequence;
+        return false;
+    }
+}
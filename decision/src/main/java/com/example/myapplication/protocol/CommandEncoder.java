@@ -0,0 +1,72 @@
+package com.example.myapplication.protocol;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns motion commands into payloads without allocating per command.
+ * Binary frames are written into a small ring of reused buffers, so a returned frame is
+ * only valid until a few more commands have been encoded; a caller that hands it to an
+ * asynchronous sender must copy it.
+ * In text mode the payloads are the precomputed command names the old firmware expects.
+ * <p>
+ * Not thread-safe: use one encoder per sending thread.
+ */
+public class CommandEncoder {
+
+    private static final int RING_SIZE = 8;
+
+    private static final byte[][] TEXT_PAYLOADS = new byte[6][];
+
+    static {
+        for (int op = 0; op < TEXT_PAYLOADS.length; op++) {
+            TEXT_PAYLOADS[op] = CommandFrame.nameOf(op).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final boolean binary;
+    private final byte[][] ring = new byte[RING_SIZE][CommandFrame.SIZE];
+    private int ringIndex = 0;
+    private int sequence = 0;
+
+    public CommandEncoder(boolean binary) {
+        this.binary = binary;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Encodes a discrete command (FORWARD, LEFT, STOP, ...).
+     */
+    public byte[] encode(int opcode) {
+        switch (opcode) {
+            case CommandFrame.OP_FORWARD:
+                return encode(opcode, CommandFrame.MAX_VALUE, 0);
+            case CommandFrame.OP_BACKWARD:
+                return encode(opcode, -CommandFrame.MAX_VALUE, 0);
+            case CommandFrame.OP_LEFT:
+                return encode(opcode, 0, -CommandFrame.MAX_VALUE);
+            case CommandFrame.OP_RIGHT:
+                return encode(opcode, 0, CommandFrame.MAX_VALUE);
+            default:
+                return encode(opcode, 0, 0);
+        }
+    }
+
+    /**
+     * Encodes a command with explicit speed and steering. In text mode only the
+     * opcode survives, since the old firmware has no notion of magnitude.
+     */
+    public byte[] encode(int opcode, int speed, int steering) {
+        if (!binary) {
+            return TEXT_PAYLOADS[opcode];
+        }
+
+        byte[] out = ring[ringIndex];
+        ringIndex = (ringIndex + 1) % RING_SIZE;
+        CommandFrame.encode(out, opcode, speed, steering, sequence, System.currentTimeMillis());
+        sequence = (sequence + 1) & 0xFFFF;
+        return out;
+    }
+}
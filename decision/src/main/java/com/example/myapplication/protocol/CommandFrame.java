@@ -0,0 +1,85 @@
+package com.example.myapplication.protocol;
+
+/**
+ * Wire format of a robot motion command (version 1, big-endian, 12 bytes):
+ * <pre>
+ *  0      version   (always {@link #VERSION})
+ *  1      opcode    (one of the OP_* constants)
+ *  2..3   speed     signed, -1000..1000 (per mille of max speed)
+ *  4..5   steering  signed, -1000 (full left) .. 1000 (full right)
+ *  6..7   sequence  unsigned 16-bit, wraps around
+ *  8..11  timestamp sender clock in ms, low 32 bits
+ * </pre>
+ * Text commands ("FORWARD", "STOP", ...) never start with byte 0x01, so a
+ * receiver can tell the two formats apart from the first byte.
+ */
+public final class CommandFrame {
+
+    public static final byte VERSION = 1;
+    public static final int SIZE = 12;
+
+    public static final int OP_STOP = 0;
+    public static final int OP_FORWARD = 1;
+    public static final int OP_BACKWARD = 2;
+    public static final int OP_LEFT = 3;
+    public static final int OP_RIGHT = 4;
+    // Continuous drive: speed and steering carry the whole command
+    public static final int OP_DRIVE = 5;
+
+    public static final int MAX_VALUE = 1000;
+
+    private static final String[] NAMES = {"STOP", "FORWARD", "BACKWARD", "LEFT", "RIGHT", "DRIVE"};
+
+    private CommandFrame() {}
+
+    /**
+     * Writes one frame into {@code out} starting at offset 0.
+     */
+    public static void encode(byte[] out, int opcode, int speed, int steering, int sequence, long timestampMs) {
+        out[0] = VERSION;
+        out[1] = (byte) opcode;
+        putShort(out, 2, clamp(speed));
+        putShort(out, 4, clamp(steering));
+        putShort(out, 6, sequence);
+        out[8] = (byte) (timestampMs >>> 24);
+        out[9] = (byte) (timestampMs >>> 16);
+        out[10] = (byte) (timestampMs >>> 8);
+        out[11] = (byte) timestampMs;
+    }
+
+    public static boolean isBinary(byte[] payload, int length) {
+        return length >= SIZE && payload[0] == VERSION;
+    }
+
+    // Text name of an opcode, as understood by the existing firmware
+    public static String nameOf(int opcode) {
+        return opcode >= 0 && opcode < NAMES.length ? NAMES[opcode] : "UNKNOWN";
+    }
+
+    // Opcode for a text command, or -1 if it is not one
+    public static int opcodeOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int getShort(byte[] in, int offset) {
+        return (short) (((in[offset] & 0xFF) << 8) | (in[offset + 1] & 0xFF));
+    }
+
+    static int getUnsignedShort(byte[] in, int offset) {
+        return ((in[offset] & 0xFF) << 8) | (in[offset + 1] & 0xFF);
+    }
+
+    private static void putShort(byte[] out, int offset, int value) {
+        out[offset] = (byte) (value >>> 8);
+        out[offset + 1] = (byte) value;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(-MAX_VALUE, Math.min(MAX_VALUE, value));
+    }
+}
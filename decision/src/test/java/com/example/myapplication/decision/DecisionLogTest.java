@@ -0,0 +1,144 @@
+package com.example.myapplication.decision;
+
+import com.example.myapplication.protocol.CommandFrame;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DecisionLogTest {
+
+    private static File tempLog() throws IOException {
+        File file = Files.createTempFile("decisions", ".bin").toFile();
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void recordedSessionReplaysLikeTheOriginal() throws IOException {
+        Recording original;
+        try (InputStreamReader reader = new InputStreamReader(
+                DecisionLogTest.class.getResourceAsStream("/replay/walk_off_left.csv"), StandardCharsets.UTF_8)) {
+            original = Recording.read(reader);
+        }
+
+        File file = tempLog();
+        try (DecisionLog log = DecisionLog.open(file, 1024)) {
+            log.recordSessionStart(0);
+            for (Recording.Frame frame : original.getFrames()) {
+                log.recordFrame(frame.timeMs, frame.width, frame.height, frame.detections);
+            }
+        }
+
+        List<Recording> sessions = new DecisionLogReader(file).getSessions();
+        assertEquals(1, sessions.size());
+        Recording replayed = sessions.get(0);
+        assertEquals(original.size(), replayed.size());
+
+        DecisionConfig config = new DecisionConfig();
+        assertEquals(ReplayHarness.replay(original, config, true, 1_000).toString(),
+                ReplayHarness.replay(replayed, config, true, 1_000).toString());
+    }
+
+    @Test
+    public void ringKeepsTheNewestRecords() throws IOException {
+        File file = tempLog();
+        try (DecisionLog log = DecisionLog.open(file, 16)) {
+            for (int i = 0; i < 40; i++) {
+                log.recordCommand(i * 100, CommandFrame.OP_DRIVE, i, -i);
+            }
+            assertEquals(40, log.getLastSequence());
+        }
+
+        List<ReplayHarness.CommandEvent> commands = new DecisionLogReader(file).getCommands();
+        assertEquals(16, commands.size());
+        for (int i = 0; i < 16; i++) {
+            ReplayHarness.CommandEvent event = commands.get(i);
+            assertEquals((24 + i) * 100, event.timeMs);
+            assertEquals(CommandFrame.OP_DRIVE, event.opcode);
+            assertEquals(24 + i, event.speed);
+            assertEquals(-(24 + i), event.steering);
+        }
+    }
+
+    @Test
+    public void reopeningContinuesAfterTheNewestRecord() throws IOException {
+        File file = tempLog();
+        Detection person = new Detection(100, 50, 200, 300, 1, 0.9f);
+        try (DecisionLog log = DecisionLog.open(file, 16)) {
+            log.recordSessionStart(1_000);
+            log.recordFrame(1_000, 640, 480, Collections.singletonList(person));
+            log.recordFrame(1_066, 640, 480, Collections.singletonList(person));
+            log.recordCommand(1_100, CommandFrame.OP_STOP, 0, 0);
+        }
+        try (DecisionLog log = DecisionLog.open(file, 16)) {
+            assertEquals(4, log.getLastSequence());
+            log.recordSessionStart(5_000);
+            log.recordFrame(5_000, 640, 480, Collections.<Detection>emptyList());
+        }
+        // A rebooted phone starts its clock over, which also starts a session
+        try (DecisionLog log = DecisionLog.open(file, 16)) {
+            log.recordFrame(20, 640, 480, Collections.<Detection>emptyList());
+        }
+
+        DecisionLogReader reader = new DecisionLogReader(file);
+        assertEquals(3, reader.getSessions().size());
+        assertEquals(2, reader.getSessions().get(0).size());
+        assertEquals(5_000, reader.getSessions().get(1).getFrames().get(0).timeMs);
+        assertEquals(1, reader.getCommands().size());
+    }
+
+    @Test
+    public void detectionsAreStoredCompactly() throws IOException {
+        List<Detection> crowd = new ArrayList<>();
+        for (int i = 0; i < DecisionLog.MAX_DETECTIONS + 3; i++) {
+            crowd.add(new Detection(10.25f + i, 20.5f, 110.75f, 420, i, 0.42f));
+        }
+        File file = tempLog();
+        try (DecisionLog log = DecisionLog.open(file, 4)) {
+            log.recordFrame(0, 640, 480, crowd);
+        }
+
+        Recording.Frame frame = new DecisionLogReader(file).getSessions().get(0).getFrames().get(0);
+        assertEquals(640, frame.width);
+        assertEquals(480, frame.height);
+        assertEquals(DecisionLog.MAX_DETECTIONS, frame.detections.size());
+        Detection first = frame.detections.get(0);
+        // Quarter pixels are exact, scores keep four decimals
+        assertEquals(10.25f, first.left, 0);
+        assertEquals(20.5f, first.top, 0);
+        assertEquals(110.75f, first.right, 0);
+        assertEquals(420f, first.bottom, 0);
+        assertEquals(0, first.trackingId);
+        assertEquals(0.42f, first.score, 1e-4);
+        assertEquals(DecisionLog.MAX_DETECTIONS - 1, frame.detections.get(DecisionLog.MAX_DETECTIONS - 1).trackingId);
+    }
+
+    @Test
+    public void otherSlotCountStartsAfresh() throws IOException {
+        File file = tempLog();
+        try (DecisionLog log = DecisionLog.open(file, 16)) {
+            log.recordCommand(0, CommandFrame.OP_FORWARD, 0, 0);
+        }
+        try (DecisionLog log = DecisionLog.open(file, 32)) {
+            assertEquals(0, log.getLastSequence());
+        }
+        assertTrue(new DecisionLogReader(file).getCommands().isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        File file = tempLog();
+        Files.write(file.toPath(), new byte[1024]);
+        new DecisionLogReader(file);
+    }
+}
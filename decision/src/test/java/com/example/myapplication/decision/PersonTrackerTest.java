@@ -0,0 +1,112 @@
+package com.example.myapplication.decision;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PersonTrackerTest {
+
+    private static final long FRAME_MS = 33;
+
+    // Walking right at 0.2 px/ms
+    private static final float SPEED = 0.2f;
+
+    private static Detection person(float centerX, float width) {
+        float height = width * 2;
+        return new Detection(centerX - width / 2, 300 - height / 2, centerX + width / 2, 300 + height / 2,
+                Detection.NO_TRACKING_ID, 0.9f);
+    }
+
+    private static List<Detection> frame(Detection... detections) {
+        return Arrays.asList(detections);
+    }
+
+    private static float walkerX(long timeMs) {
+        return 200 + SPEED * timeMs;
+    }
+
+    // Follows the walker for durationMs starting at startMs; returns the time after the last frame
+    private static long walk(PersonTracker tracker, long startMs, long durationMs) {
+        long t = startMs;
+        for (; t < startMs + durationMs; t += FRAME_MS) {
+            tracker.update(frame(person(walkerX(t), 100)), t);
+        }
+        return t;
+    }
+
+    @Test
+    public void idSurvivesADetectionDropout() {
+        PersonTracker tracker = new PersonTracker();
+        long t = walk(tracker, 0, 500);
+        int id = tracker.getTarget().getId();
+
+        // Nothing detected for 400 ms, shorter than the coasting window
+        for (long end = t + 400; t < end; t += FRAME_MS) {
+            assertNotNull(tracker.update(Collections.emptyList(), t));
+        }
+        walk(tracker, t, 200);
+
+        assertEquals(id, tracker.getTarget().getId());
+        assertEquals(1, tracker.getTrackCount());
+        assertEquals(0, tracker.getTargetSwitches());
+    }
+
+    @Test
+    public void largerDistractorDoesNotStealTheLock() {
+        PersonTracker tracker = new PersonTracker();
+        long t = walk(tracker, 0, 300);
+        int id = tracker.getTarget().getId();
+
+        // Someone closer to the camera steps in on the other side
+        for (long end = t + 1_000; t < end; t += FRAME_MS) {
+            tracker.update(frame(person(1_000, 300), person(walkerX(t), 100)), t);
+        }
+
+        assertEquals(id, tracker.getTarget().getId());
+        assertEquals(walkerX(t - FRAME_MS), tracker.getTarget().centerX(), 10);
+        assertEquals(0, tracker.getTargetSwitches());
+    }
+
+    @Test
+    public void skippedFramesArePredictedFromVelocity() {
+        PersonTracker tracker = new PersonTracker();
+        long t = walk(tracker, 0, 1_000);
+        long lastMs = t - FRAME_MS;
+
+        assertEquals(SPEED, tracker.getTarget().velocityX(), 0.05);
+        for (long skipped = lastMs + FRAME_MS; skipped <= lastMs + 200; skipped += FRAME_MS) {
+            assertEquals(walkerX(skipped), tracker.predictTargetX(skipped), 10);
+        }
+        // Prediction leaves the tracks alone
+        assertEquals(walkerX(lastMs), tracker.getTarget().centerX(), 10);
+        assertEquals(300, tracker.predictTargetY(lastMs + 200), 1);
+    }
+
+    @Test
+    public void lostTargetIsReacquiredWithItsIdentity() {
+        PersonTracker tracker = new PersonTracker();
+        long t = walk(tracker, 0, 500);
+        int id = tracker.getTarget().getId();
+
+        // Gone for longer than a track is coasted
+        for (long end = t + 1_000; t < end; t += FRAME_MS) {
+            tracker.update(Collections.emptyList(), t);
+        }
+        assertNull(tracker.getTarget());
+        assertEquals(0, tracker.getTrackCount());
+
+        // Back where the walk leads, next to a larger stranger; a new track needs two hits
+        tracker.update(frame(person(1_200, 250), person(walkerX(t), 100)), t);
+        t += FRAME_MS;
+        tracker.update(frame(person(1_200, 250), person(walkerX(t), 100)), t);
+
+        assertNotNull(tracker.getTarget());
+        assertEquals(id, tracker.getTarget().getId());
+        assertEquals(walkerX(t), tracker.getTarget().centerX(), 20);
+        assertEquals(0, tracker.getTargetSwitches());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.myapplication.decision;
+
+import com.example.myapplication.protocol.CommandFrame;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReplayHarnessTest {
+
+    // The person leaves at 3036 ms; the recording ends at 4950 ms
+    private static final long LAST_SEEN_MS = 2970;
+
+    private static Recording load(String name) throws IOException {
+        InputStream in = ReplayHarnessTest.class.getResourceAsStream("/replay/" + name);
+        assertNotNull("missing replay " + name, in);
+        try (InputStreamReader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return Recording.read(reader);
+        }
+    }
+
+    private static int indexOfStop(List<ReplayHarness.CommandEvent> events) {
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i).opcode == CommandFrame.OP_STOP) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void steersAfterThePersonAndStopsWhenTheyLeave() throws IOException {
+        Recording recording = load("walk_off_left.csv");
+        List<ReplayHarness.CommandEvent> events = ReplayHarness.replay(recording, new DecisionConfig(), true, 1_000);
+
+        int stop = indexOfStop(events);
+        assertTrue("no STOP in " + events, stop > 0);
+        assertEquals("nothing after STOP", events.size() - 1, stop);
+        assertTrue(events.get(stop).timeMs > LAST_SEEN_MS);
+
+        int maxSteering = 0;
+        for (int i = 0; i < stop; i++) {
+            ReplayHarness.CommandEvent event = events.get(i);
+            assertEquals(CommandFrame.OP_DRIVE, event.opcode);
+            // Left of centre in the front camera steers right, never the other way
+            assertTrue(event.toString(), event.steering >= 0);
+            maxSteering = Math.max(maxSteering, event.steering);
+        }
+        assertTrue("never turned: " + events, maxSteering > CommandFrame.MAX_VALUE / 2);
+    }
+
+    @Test
+    public void publishesAtMostOncePerTick() throws IOException {
+        Recording recording = load("walk_off_left.csv");
+        DecisionConfig config = new DecisionConfig();
+        List<ReplayHarness.CommandEvent> events = ReplayHarness.replay(recording, config, true, 1_000);
+
+        long ticks = (recording.getDurationMs() + 1_000) / config.controlTickMs;
+        // The STOP comes from a detection result, not a tick
+        assertTrue(events.size() - 1 <= ticks);
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i).timeMs > events.get(i - 1).timeMs);
+        }
+    }
+
+    @Test
+    public void discreteCommandsDoNotFlap() throws IOException {
+        Recording recording = load("walk_off_left.csv");
+        List<ReplayHarness.CommandEvent> events = ReplayHarness.replay(recording, new DecisionConfig(), false, 1_000);
+
+        // Forward, then right as the person drifts left, then stop
+        assertTrue("too many changes: " + events, events.size() <= 4);
+        assertEquals(CommandFrame.OP_STOP, events.get(events.size() - 1).opcode);
+        boolean turnedRight = false;
+        for (ReplayHarness.CommandEvent event : events) {
+            assertNotEquals(CommandFrame.OP_LEFT, event.opcode);
+            turnedRight |= event.opcode == CommandFrame.OP_RIGHT;
+        }
+        assertTrue(events.toString(), turnedRight);
+    }
+
+    @Test
+    public void lowerNoPersonThresholdStopsSooner() throws IOException {
+        Recording recording = load("walk_off_left.csv");
+        DecisionConfig patient = new DecisionConfig();
+        DecisionConfig eager = patient.copy();
+        eager.noPersonThreshold = 3;
+
+        List<ReplayHarness.CommandEvent> slow = ReplayHarness.replay(recording, patient, true, 1_000);
+        List<ReplayHarness.CommandEvent> fast = ReplayHarness.replay(recording, eager, true, 1_000);
+        long slowStop = slow.get(indexOfStop(slow)).timeMs;
+        long fastStop = fast.get(indexOfStop(fast)).timeMs;
+        assertTrue(fastStop + " vs " + slowStop, fastStop < slowStop);
+    }
+
+    @Test
+    public void csvRoundTrips() throws IOException {
+        Recording recording = new Recording();
+        recording.add(0, 640, 480, Collections.singletonList(new Detection(10, 20, 110.5f, 220, 3, 0.875f)));
+        recording.add(66, 640, 480, Collections.<Detection>emptyList());
+
+        StringWriter out = new StringWriter();
+        recording.write(out);
+        Recording back = Recording.read(new StringReader(out.toString()));
+
+        assertEquals(2, back.size());
+        assertEquals(66, back.getDurationMs());
+        Detection d = back.getFrames().get(0).detections.get(0);
+        assertEquals(110.5f, d.right, 0);
+        assertEquals(3, d.trackingId);
+        assertEquals(0.875f, d.score, 0);
+        assertTrue(back.getFrames().get(1).detections.isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedLines() throws IOException {
+        Recording.read(new StringReader("0,640,480,10,20,30\n"));
+    }
+}
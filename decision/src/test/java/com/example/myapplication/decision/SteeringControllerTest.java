@@ -0,0 +1,131 @@
+package com.example.myapplication.decision;
+
+import com.example.myapplication.protocol.CommandFrame;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SteeringControllerTest {
+
+    private static final long TICK_MS = 100;
+
+    // P-only controller with a generous slew limit, so outputs settle within one tick
+    private static SteeringController proportional() {
+        return new SteeringController(1.0, 0, 0, 1.0, 0.1, 0.05, 100);
+    }
+
+    @Test
+    public void steeringIsProportionalToOffset() {
+        SteeringController controller = proportional();
+        controller.setMeasurement(0.5, 0.1);
+        controller.update(TICK_MS);
+        assertEquals(500, controller.getSteering());
+
+        controller.setMeasurement(-0.25, 0.1);
+        controller.update(TICK_MS);
+        assertEquals(-250, controller.getSteering());
+    }
+
+    @Test
+    public void deadbandHoldsCentredTargetStraight() {
+        SteeringController controller = proportional();
+        controller.setMeasurement(0.03, 0.05);
+        controller.update(TICK_MS);
+        assertEquals(0, controller.getSteering());
+        assertTrue(controller.getSpeed() > 0);
+    }
+
+    @Test
+    public void speedFollowsDistanceAndNeverReverses() {
+        SteeringController controller = proportional();
+        controller.setMeasurement(0, 0.05);
+        controller.update(TICK_MS);
+        assertEquals(500, controller.getSpeed());
+
+        controller.setMeasurement(0, 0.1);
+        controller.update(TICK_MS);
+        assertEquals(0, controller.getSpeed());
+
+        controller.setMeasurement(0, 0.4);
+        controller.update(TICK_MS);
+        assertEquals(0, controller.getSpeed());
+    }
+
+    @Test
+    public void outputsAreSlewRateLimited() {
+        SteeringController controller = new SteeringController(1.0, 0, 0, 1.0, 0.1, 0, 2.0);
+        controller.setMeasurement(1, 0.1);
+        controller.update(TICK_MS);
+        assertEquals(200, controller.getSteering());
+        controller.update(TICK_MS);
+        assertEquals(400, controller.getSteering());
+
+        controller.clearMeasurement();
+        controller.update(TICK_MS);
+        assertEquals(200, controller.getSteering());
+    }
+
+    @Test
+    public void integralRemovesSteadyOffsetButIsBounded() {
+        SteeringController controller = new SteeringController(0.1, 1.0, 0, 1.0, 0.1, 0, 100);
+        controller.setMeasurement(0.2, 0.1);
+        controller.update(TICK_MS);
+        int first = controller.getSteering();
+        for (int i = 0; i < 100; i++) {
+            controller.update(TICK_MS);
+        }
+        assertTrue(controller.getSteering() > first);
+        // P share 0.02 plus the integral clamp 0.3
+        assertEquals(320, controller.getSteering());
+    }
+
+    @Test
+    public void derivativeDampsFastApproach() {
+        SteeringController damped = new SteeringController(1.0, 0, 0.1, 1.0, 0.1, 0, 100);
+        SteeringController undamped = proportional();
+        for (SteeringController controller : new SteeringController[]{damped, undamped}) {
+            controller.setMeasurement(0.8, 0.1);
+            controller.update(TICK_MS);
+            controller.setMeasurement(0.6, 0.1);
+            controller.update(TICK_MS);
+        }
+        assertTrue(damped.getSteering() < undamped.getSteering());
+    }
+
+    @Test
+    public void discreteFallbackHasHysteresis() {
+        SteeringController controller = proportional();
+        controller.setMeasurement(0.5, 0.05);
+        controller.update(TICK_MS);
+        assertEquals(CommandFrame.OP_RIGHT, controller.discreteCommand());
+
+        // Below the entry threshold, but not below the exit one: keep turning
+        controller.setMeasurement(0.3, 0.05);
+        controller.update(TICK_MS);
+        assertEquals(CommandFrame.OP_RIGHT, controller.discreteCommand());
+
+        controller.setMeasurement(0.1, 0.05);
+        controller.update(TICK_MS);
+        assertEquals(CommandFrame.OP_FORWARD, controller.discreteCommand());
+
+        // From FORWARD the same 0.3 is not enough to start turning
+        controller.setMeasurement(0.3, 0.05);
+        controller.update(TICK_MS);
+        assertEquals(CommandFrame.OP_FORWARD, controller.discreteCommand());
+
+        controller.setMeasurement(-0.5, 0.05);
+        controller.update(TICK_MS);
+        assertEquals(CommandFrame.OP_LEFT, controller.discreteCommand());
+    }
+
+    @Test
+    public void resetStopsImmediately() {
+        SteeringController controller = proportional();
+        controller.setMeasurement(0.5, 0.05);
+        controller.update(TICK_MS);
+        controller.reset();
+        assertTrue(controller.isIdle());
+        assertEquals(CommandFrame.OP_STOP, controller.discreteCommand());
+    }
+}
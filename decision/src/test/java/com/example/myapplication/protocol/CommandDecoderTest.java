@@ -0,0 +1,104 @@
+package com.example.myapplication.protocol;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class CommandDecoderTest {
+
+    private static CommandDecoder.Command decode(CommandDecoder decoder, byte[] payload) {
+        CommandDecoder.Command command = new CommandDecoder.Command();
+        assertTrue(decoder.decode(payload, payload.length, command));
+        return command;
+    }
+
+    @Test
+    public void binaryFrameRoundTrips() {
+        byte[] frame = new byte[CommandFrame.SIZE];
+        CommandFrame.encode(frame, CommandFrame.OP_DRIVE, -437, 812, 0xBEEF, 0x1_2345_6789L);
+
+        CommandDecoder.Command command = decode(new CommandDecoder(), frame);
+        assertTrue(command.binary);
+        assertEquals(CommandFrame.OP_DRIVE, command.opcode);
+        assertEquals(-437, command.speed);
+        assertEquals(812, command.steering);
+        assertEquals(0xBEEF, command.sequence);
+        // Only the low 32 bits of the clock travel
+        assertEquals(0x2345_6789L, command.timestampMs);
+    }
+
+    @Test
+    public void speedAndSteeringAreClamped() {
+        byte[] frame = new byte[CommandFrame.SIZE];
+        CommandFrame.encode(frame, CommandFrame.OP_DRIVE, 5_000, -5_000, 0, 0);
+
+        CommandDecoder.Command command = decode(new CommandDecoder(), frame);
+        assertEquals(CommandFrame.MAX_VALUE, command.speed);
+        assertEquals(-CommandFrame.MAX_VALUE, command.steering);
+    }
+
+    @Test
+    public void encoderFramesDecodeWithDiscreteMagnitudes() {
+        CommandEncoder encoder = new CommandEncoder(true);
+        CommandDecoder decoder = new CommandDecoder();
+
+        CommandDecoder.Command left = decode(decoder, encoder.encode(CommandFrame.OP_LEFT));
+        assertEquals(CommandFrame.OP_LEFT, left.opcode);
+        assertEquals(0, left.speed);
+        assertEquals(-CommandFrame.MAX_VALUE, left.steering);
+        assertEquals(0, left.sequence);
+
+        CommandDecoder.Command backward = decode(decoder, encoder.encode(CommandFrame.OP_BACKWARD));
+        assertEquals(-CommandFrame.MAX_VALUE, backward.speed);
+        assertEquals(1, backward.sequence);
+    }
+
+    @Test
+    public void textCommandsRoundTrip() {
+        CommandEncoder encoder = new CommandEncoder(false);
+        CommandDecoder decoder = new CommandDecoder();
+        for (int op = CommandFrame.OP_STOP; op <= CommandFrame.OP_DRIVE; op++) {
+            byte[] payload = encoder.encode(op, 500, 500);
+            assertEquals(CommandFrame.nameOf(op), new String(payload, StandardCharsets.US_ASCII));
+
+            CommandDecoder.Command command = decode(decoder, payload);
+            assertFalse(command.binary);
+            assertEquals(op, command.opcode);
+            assertEquals(0, command.speed);
+            assertEquals(-1, command.sequence);
+            assertFalse(decoder.isStale(command));
+        }
+    }
+
+    @Test
+    public void rejectsUnknownPayloads() {
+        CommandDecoder.Command command = new CommandDecoder.Command();
+        byte[] junk = "JUMP".getBytes(StandardCharsets.US_ASCII);
+        assertFalse(new CommandDecoder().decode(junk, junk.length, command));
+
+        // Too short to be a frame, and not a name either
+        byte[] truncated = {CommandFrame.VERSION, CommandFrame.OP_STOP, 0, 0};
+        assertFalse(new CommandDecoder().decode(truncated, truncated.length, command));
+    }
+
+    @Test
+    public void outOfOrderFramesAreStaleAcrossTheWrap() {
+        CommandDecoder decoder = new CommandDecoder();
+        byte[] frame = new byte[CommandFrame.SIZE];
+
+        int[] sequences = {0xFFFE, 0xFFFF, 0, 1};
+        for (int sequence : sequences) {
+            CommandFrame.encode(frame, CommandFrame.OP_FORWARD, 0, 0, sequence, 0);
+            assertFalse("sequence " + sequence, decoder.isStale(decode(decoder, frame)));
+        }
+
+        CommandFrame.encode(frame, CommandFrame.OP_STOP, 0, 0, 0xFFFF, 0);
+        assertTrue(decoder.isStale(decode(decoder, frame)));
+        CommandFrame.encode(frame, CommandFrame.OP_STOP, 0, 0, 1, 0);
+        assertTrue("a duplicate is stale too", decoder.isStale(decode(decoder, frame)));
+        CommandFrame.encode(frame, CommandFrame.OP_STOP, 0, 0, 2, 0);
+        assertFalse(decoder.isStale(decode(decoder, frame)));
+    }
+}